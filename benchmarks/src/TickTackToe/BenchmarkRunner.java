@@ -0,0 +1,23 @@
+package TickTackToe;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the GC profiler, which reports the bytes allocated per operation
+ * <br>
+ * Usage : BenchmarkRunner [benchmark name pattern]
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException {
+        final Options OPTIONS = new OptionsBuilder()
+            .include(args.length > 0 ? args[0] : "TickTackToe\\..*Benchmark")
+            .addProfiler(GCProfiler.class)
+            .build();
+        new Runner(OPTIONS).run();
+    }
+}
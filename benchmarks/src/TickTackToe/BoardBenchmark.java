@@ -0,0 +1,115 @@
+package TickTackToe;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the single-tile operations of {@link Board} and {@link TickTackToe} on half-filled boards
+ * <br>
+ * Every call walks over the tiles in a fixed random order, so the branch predictor cannot learn a single tile
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+
+    // the number of tiles visited in a fixed order
+    private static final int ORDER_LENGTH = 1024;
+
+    // the size of the board
+    @Param({"3", "8", "15", "64"})
+    public int dimension;
+
+    // a game halfway through
+    private TickTackToe game;
+
+    // the tiles visited by the benchmarks, and the next one to visit
+    private int[] order;
+    private int next;
+
+    @Setup
+    public void setUp() {
+
+        final SplittableRandom RANDOM = new SplittableRandom(dimension);
+
+        // fills half of the board with random moves, without letting anyone win
+        game = new TickTackToe(dimension, dimension, dimension, GameSessions.EMPTY_TILE_KEY,
+                               GameSessions.PLAYER_O_KEY, GameSessions.PLAYER_X_KEY);
+        final int TILES = dimension * dimension;
+        for (int played = 0; played < TILES / 2; ) {
+            final int MOVE = RANDOM.nextInt(TILES);
+            final int Y = game.moveY(MOVE);
+            final int X = game.moveX(MOVE);
+            if (game.isPlayableTile(Y, X) && !game.completesLine(Y, X, game.curPlayerTurn())) {
+                game.makeMove(MOVE);
+                played++;
+            }
+        }
+
+        order = new int[ORDER_LENGTH];
+        for (int i = 0; i < ORDER_LENGTH; i++) {
+            order[i] = RANDOM.nextInt(TILES);
+        }
+    }
+
+    /**
+     * Gets the next tile to visit
+     * @return the tile
+     */
+    private int nextTile() {
+        next = next + 1 & ORDER_LENGTH - 1;
+        return order[next];
+    }
+
+    @Benchmark
+    public long makeUnmakeMove() {
+        // plays a free tile then takes it back, which leaves the board half-filled
+        final int MOVE = game.getFreeCell(nextTile() % game.getFreeCellCount());
+        game.makeMove(MOVE);
+        final long HASH = game.getZobristHash();
+        game.unmakeMove(MOVE);
+        return HASH;
+    }
+
+    @Benchmark
+    public int getTile() {
+        final int MOVE = nextTile();
+        return game.getTile(game.moveY(MOVE), game.moveX(MOVE));
+    }
+
+    @Benchmark
+    public boolean isPlayableTile() {
+        final int MOVE = nextTile();
+        return game.isPlayableTile(game.moveY(MOVE), game.moveX(MOVE));
+    }
+
+    @Benchmark
+    public boolean hasSpaceLeft() {
+        return game.hasSpaceLeft();
+    }
+
+    @Benchmark
+    public int winingPlayer() {
+        return game.winingPlayer();
+    }
+
+    @Benchmark
+    public String toStringBoard() {
+        return game.toString();
+    }
+}
@@ -0,0 +1,62 @@
+package TickTackToe;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures whole random games, from an empty board until a player wins or the board is full
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameBenchmark {
+
+    // the size of the board
+    @Param({"3", "8", "15"})
+    public int dimension;
+
+    // the number of aligned pawns needed to win, 0 for a whole line
+    @Param({"0", "5"})
+    public int winLength;
+
+    // the game replayed by every call
+    private TickTackToe game;
+
+    // the moves of every player
+    private PlayerPolicy policy;
+    private SplittableRandom random;
+
+    @Setup
+    public void setUp() {
+        final int WIN_LENGTH = winLength == 0 ? dimension : Math.min(winLength, dimension);
+        game = new TickTackToe(dimension, dimension, WIN_LENGTH, GameSessions.EMPTY_TILE_KEY,
+                               GameSessions.PLAYER_O_KEY, GameSessions.PLAYER_X_KEY);
+        policy = SelfPlaySimulator.randomPolicy().get();
+        random = new SplittableRandom(dimension);
+    }
+
+    @Benchmark
+    public int randomGame() {
+        game.reset();
+        while (game.winingPlayer() == game.EMPTY_TILE_KEY && game.hasSpaceLeft()) {
+            final int MOVE = policy.chooseMove(game, random);
+            game.play(game.moveX(MOVE), game.moveY(MOVE));
+        }
+        return game.winingPlayer();
+    }
+}
@@ -0,0 +1,74 @@
+package TickTackToe;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the search engines on the empty board, each call starting from empty tables and trees
+ * <br>
+ * The engines are created once per iteration and emptied at the start of every call, so the allocation rates
+ * reported by the GC profiler are those of the searches themselves
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchBenchmark {
+
+    // the number of playouts of every tree search
+    private static final int MONTE_CARLO_ITERATIONS = 10_000;
+
+    // the size of the board
+    @Param({"3", "4", "9", "15"})
+    public int dimension;
+
+    // the empty game searched
+    private TickTackToe game;
+
+    // the engines and the table of the alpha-beta engine, emptied before every call
+    private TranspositionTable table;
+    private AI alphaBetaEngine;
+    private MonteCarloTreeSearch monteCarloEngine;
+
+    @Setup
+    public void setUp() {
+        // larger boards only get a few plies and a line of five
+        final int WIN_LENGTH = Math.min(dimension, 5);
+        game = new TickTackToe(dimension, dimension, WIN_LENGTH, GameSessions.EMPTY_TILE_KEY,
+                               GameSessions.PLAYER_O_KEY, GameSessions.PLAYER_X_KEY);
+    }
+
+    @Setup(Level.Iteration)
+    public void setUpEngines() {
+        // the table only needs to be large enough for the board, as emptying it is part of every call
+        table = new TranspositionTable(dimension <= 3 ? 1 << 18 : 1 << 24);
+        alphaBetaEngine = new AI(dimension <= 4 ? dimension * dimension : 2, table, 1);
+        monteCarloEngine = new MonteCarloTreeSearch(1 << 18, dimension);
+    }
+
+    @Benchmark
+    public int alphaBeta() {
+        table.clear();
+        return alphaBetaEngine.bestMove(game);
+    }
+
+    @Benchmark
+    public int monteCarlo() {
+        monteCarloEngine.clear();
+        return monteCarloEngine.bestMove(game, MONTE_CARLO_ITERATIONS);
+    }
+}
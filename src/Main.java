@@ -1,11 +1,47 @@
+import TickTackToe.BoardRenderer;
+import TickTackToe.GameLoadClient;
+import TickTackToe.GameMetrics;
+import TickTackToe.GameScriptRunner;
+import TickTackToe.GameServer;
+import TickTackToe.GameSessions;
+import TickTackToe.PlayerPolicy;
+import TickTackToe.SelfPlaySimulator;
 import TickTackToe.TickTackToe;
 
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.InputMismatchException;
 import java.util.Scanner;
+import java.util.function.Supplier;
 
 public class Main {
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException, InterruptedException {
+
+        // runs headless when asked to
+        if (args.length > 0 && args[0].equals("--server")) {
+            serve(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--load")) {
+            load(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--simulate")) {
+            simulate(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--script")) {
+            script(args);
+            return;
+        }
+
+        // redraws only the changed tiles on ANSI terminals when asked to
+        final boolean ANSI = args.length > 0 && args[0].equals("--ansi");
 
         Scanner sc = new Scanner(System.in);
 
@@ -30,12 +66,15 @@ public class Main {
             }
         } while (boardDimensions < 3);
 
-        // creates singleton instance of board
-        TickTackToe testBoard = TickTackToe.getTickTackToe_Instance(boardDimensions, EMPTY_TILE_KEY, PLAYER_O_KEY, PLAYER_X_KEY);
+        // starts a game
+        GameSessions sessions = new GameSessions();
+        long gameId = sessions.create(boardDimensions, boardDimensions, boardDimensions,
+                                      EMPTY_TILE_KEY, PLAYER_O_KEY, PLAYER_X_KEY);
+        TickTackToe testBoard = sessions.get(gameId);
 
         // displays board
-        System.out.println(testBoard);
-        System.out.println();
+        BoardRenderer renderer = new BoardRenderer(testBoard);
+        display(renderer, ANSI);
 
         // loop conditions
         boolean playerXHasWon;
@@ -68,11 +107,10 @@ public class Main {
             } while (x < 0 || x > boardDimensions || y < 0 || y > boardDimensions);
 
             // places the pawn
-            testBoard.play(x, y);
+            sessions.play(gameId, x, y);
 
             // displays the board
-            System.out.println(testBoard);
-            System.out.println();
+            display(renderer, ANSI);
 
             // determines the currently wining player
             winingPlayer = testBoard.winingPlayer();
@@ -83,5 +121,159 @@ public class Main {
             isSpaceLeft = testBoard.hasSpaceLeft();
 
         } while (!playerXHasWon && !playerOHasWon && isSpaceLeft);
+
+        // ends the game
+        sessions.retire(gameId);
+    }
+
+    /**
+     * Displays the board of the game being played, followed by an empty line
+     * @param renderer the renderer of the game's board
+     * @param ansi whether to redraw only the tiles which changed since the last display
+     * @throws IOException if the board could not be written
+     */
+    private static void display(BoardRenderer renderer, boolean ansi) throws IOException {
+        if (ansi) {
+            renderer.renderChanges(System.out);
+            System.out.println();
+        } else {
+            renderer.render(System.out);
+            System.out.println();
+            System.out.println();
+        }
+        System.out.flush();
+    }
+
+    /**
+     * Serves games until the process is stopped
+     * <br>
+     * Usage : --server [port]
+     * @param args the command line arguments
+     * @throws IOException if the port could not be bound
+     */
+    private static void serve(String[] args) throws IOException {
+        final int PORT = args.length > 1 ? Integer.parseInt(args[1]) : 7777;
+        GameMetrics.enable();
+        try (GameServer server = new GameServer(new GameSessions(), PORT)) {
+            System.out.println("Serving games on port " + server.getPort());
+            server.run();
+        }
+    }
+
+    /**
+     * Measures a game server, starting one in this process unless a port is given
+     * <br>
+     * Usage : --load [connections] [games per connection] [board dimensions] [pipeline depth] [port]
+     * @param args the command line arguments
+     * @throws IOException if the server could not be reached
+     */
+    private static void load(String[] args) throws IOException {
+
+        final int CONNECTIONS = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        final int GAMES = args.length > 2 ? Integer.parseInt(args[2]) : 10_000;
+        final int DIMENSION = args.length > 3 ? Integer.parseInt(args[3]) : 3;
+        final int PIPELINE = args.length > 4 ? Integer.parseInt(args[4]) : 4;
+
+        // runs against a local server when none is given
+        GameServer server = null;
+        int port;
+        if (args.length > 5) {
+            port = Integer.parseInt(args[5]);
+        } else {
+            GameMetrics.enable();
+            server = new GameServer(new GameSessions(), 0);
+            port = server.getPort();
+            final GameServer SERVER = server;
+            final Thread THREAD = new Thread(() -> {
+                try {
+                    SERVER.run();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }, "game-server");
+            THREAD.setDaemon(true);
+            THREAD.start();
+        }
+
+        try {
+            final GameLoadClient CLIENT = new GameLoadClient(port, CONNECTIONS, GAMES, DIMENSION, PIPELINE);
+            CLIENT.run();
+            System.out.println(CLIENT);
+            if (server != null) {
+                System.out.print(GameMetrics.dump());
+            }
+        } finally {
+            if (server != null) {
+                server.close();
+            }
+        }
+    }
+
+    /**
+     * Plays games between two policies on every core, printing the statistics every second
+     * <br>
+     * Usage : --simulate [games] [board dimensions] [player X policy] [player O policy] [seed]
+     * <br>
+     * Policies are "random" or "engine:depth"
+     * @param args the command line arguments
+     * @throws InterruptedException if the thread was interrupted while waiting for the games
+     */
+    private static void simulate(String[] args) throws InterruptedException {
+
+        final long GAMES = args.length > 1 ? Long.parseLong(args[1]) : 1_000_000;
+        final int DIMENSION = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+        final Supplier<PlayerPolicy> PLAYER_X = policy(args.length > 3 ? args[3] : "random");
+        final Supplier<PlayerPolicy> PLAYER_O = policy(args.length > 4 ? args[4] : "random");
+        final long SEED = args.length > 5 ? Long.parseLong(args[5]) : 0;
+
+        final SelfPlaySimulator SIMULATOR = new SelfPlaySimulator(DIMENSION, PLAYER_X, PLAYER_O, SEED);
+
+        // plays in the background and reports on the way
+        final Thread THREAD = new Thread(() -> {
+            try {
+                SIMULATOR.run(GAMES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "self-play");
+        THREAD.start();
+        while (THREAD.isAlive()) {
+            THREAD.join(1000);
+            System.out.println(SIMULATOR);
+        }
+    }
+
+    /**
+     * Plays the scripted games of a file, or of the standard input, printing one result line per game
+     * <br>
+     * Usage : --script [file]
+     * <br>
+     * See {@link GameScriptRunner} for the format of the scripts and results
+     * @param args the command line arguments
+     * @throws IOException if the scripts could not be read
+     */
+    private static void script(String[] args) throws IOException {
+        try (ReadableByteChannel in = args.length > 1 && !args[1].equals("-")
+                                      ? FileChannel.open(Paths.get(args[1]), StandardOpenOption.READ)
+                                      : Channels.newChannel(System.in)) {
+            final GameScriptRunner RUNNER = new GameScriptRunner(in, Channels.newChannel(System.out));
+            RUNNER.run();
+            System.out.flush();
+            System.err.printf("%s games, %s moves, %s errors%n", RUNNER.getGames(), RUNNER.getMoves(),
+                              RUNNER.getErrors());
+        }
+    }
+
+    /**
+     * Reads a player policy from the command line
+     * @param name "random" or "engine:depth"
+     * @return the factory of the policy
+     */
+    private static Supplier<PlayerPolicy> policy(String name) {
+        if (name.startsWith("engine")) {
+            final int DEPTH = name.contains(":") ? Integer.parseInt(name.substring(name.indexOf(':') + 1)) : 9;
+            return SelfPlaySimulator.enginePolicy(DEPTH, 1 << 20);
+        }
+        return SelfPlaySimulator.randomPolicy();
     }
 }
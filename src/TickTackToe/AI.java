@@ -1,28 +1,416 @@
-/*
 package TickTackToe;
 
-public class AI extends TickTackToe {
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+/**
+ * A Tick Tack Toe engine looking for the best move with a negamax search and alpha-beta pruning
+ * <br>
+ * Engines using several threads split the moves of the root between the workers of a {@link ForkJoinPool},
+ * which share one lock-free transposition table.
+ * Searches given a time budget deepen one ply at a time and answer with the last depth they completed.
+ * An engine keeps its search buffers between calls : it is cheap to reuse but must not be called from several
+ * threads at once
+ */
+public class AI {
+
+    // score of a won position, lowered by one for every ply needed to reach the win
+    static final int WIN_SCORE = SearchWorker.WIN_SCORE;
+
+    // memory given to the transposition table of engines which are not handed one
+    private static final long DEFAULT_TABLE_BYTES = 16L << 20;
+
+    // the singleton instance of the engine
     private static AI ai_Instance;
 
-    */
-/**
-     * <h2>AI Constructor</h2>
-     * <p>Called only once to create the singleton of the Board class</p>
-     *
-     * @param dimension the size of the board
-     *//*
+    // how many plies the engine looks ahead
+    private final int SEARCH_DEPTH;
+
+    // the results of previously searched positions
+    private final TranspositionTable TABLE;
 
-    private AI(int dimension) {
+    // the number of threads searching at once
+    private final int THREADS;
 
+    // the worker of the calling thread
+    private final SearchWorker WORKER;
+
+    // the workers of the pool threads
+    private final ThreadLocal<SearchWorker> POOL_WORKERS;
+
+    // the threads searching the root moves, created on the first parallel search
+    private ForkJoinPool pool;
+
+    // the number of positions visited by the last search
+    private long searchedNodes;
+
+    // the moves played without searching in the first plies, or null to always search
+    private OpeningBook openingBook;
+
+    /**
+     * Creates an engine which searches every game until its end
+     */
+    public AI() {
+        this(Integer.MAX_VALUE);
     }
 
-    public static AI getAiInstance(int dimension) {
+    /**
+     * Creates an engine which looks a fixed number of plies ahead
+     * @param depth the number of plies to look ahead
+     */
+    public AI(int depth) {
+        this(depth, new TranspositionTable(DEFAULT_TABLE_BYTES));
+    }
+
+    /**
+     * Creates an engine which looks a fixed number of plies ahead and remembers positions in the given table
+     * @param depth the number of plies to look ahead
+     * @param table the transposition table of the engine
+     */
+    public AI(int depth, TranspositionTable table) {
+        this(depth, table, 1);
+    }
+
+    /**
+     * Creates an engine which searches on several threads
+     * <br>
+     * The scores found match those of a single thread search of the same depth whenever the search reaches the end
+     * of the game, and ties are broken the same way
+     * @param depth the number of plies to look ahead
+     * @param table the transposition table shared by every thread of the engine
+     * @param threads the number of threads searching at once
+     */
+    public AI(int depth, TranspositionTable table, int threads) {
+
+        // if the engine cannot look a single move ahead...
+        if (depth < 1) {
+            // throws an error
+            throw new IllegalArgumentException("Search depth must be at least 1");
+        }
+
+        // if the engine has no thread to search with...
+        if (threads < 1) {
+            // throws an error
+            throw new IllegalArgumentException("Search needs at least 1 thread");
+        }
+
+        this.SEARCH_DEPTH = depth;
+        this.TABLE = table;
+        this.THREADS = threads;
+        this.WORKER = new SearchWorker(table);
+        this.POOL_WORKERS = ThreadLocal.withInitial(() -> new SearchWorker(table));
+    }
+
+    /**
+     * Gets the singleton instance of the AI class
+     * @param depth the number of plies to look ahead
+     * @return the singleton of the AI class
+     * @deprecated engines keep per-game search state, create one with a constructor instead
+     */
+    @Deprecated
+    public static AI getAiInstance(int depth) {
+        // if the singleton hasn't been created yet...
         if (ai_Instance == null) {
-            ai_Instance = new AI(dimension);
+            // calls the class constructor
+            ai_Instance = new AI(depth);
         }
 
+        // returns the singleton
         return ai_Instance;
     }
+
+    /**
+     * Gets the search depth
+     * @return the number of plies the engine looks ahead
+     */
+    public int getSEARCH_DEPTH() {
+        return SEARCH_DEPTH;
+    }
+
+    /**
+     * Gets the number of threads searching at once
+     * @return the number of threads
+     */
+    public int getTHREADS() {
+        return THREADS;
+    }
+
+    /**
+     * Gets the transposition table of the engine
+     * @return the transposition table
+     */
+    public TranspositionTable getTranspositionTable() {
+        return TABLE;
+    }
+
+    /**
+     * Gets the opening book of the engine
+     * @return the opening book, or null if the engine always searches
+     */
+    public OpeningBook getOpeningBook() {
+        return openingBook;
+    }
+
+    /**
+     * Sets the opening book the engine plays from before searching
+     * @param book the opening book, or null to always search
+     */
+    public void setOpeningBook(OpeningBook book) {
+        this.openingBook = book;
+    }
+
+    /**
+     * Gets the number of positions visited by the last search
+     * @return the number of visited positions
+     */
+    public long getSearchedNodes() {
+        return searchedNodes;
+    }
+
+    /**
+     * Finds the best move for the player whose turn it is, searching up to the engine's depth
+     * <br>
+     * The game itself is left untouched, the search runs on a copy of it
+     * @param state the game to find a move for
+     * @return the best move (see {@link Board#toMove(int, int)}), or -1 if the game is over
+     */
+    public int bestMove(TickTackToe state) {
+        return search(state, false, SearchWorker.NO_DEADLINE).getMove();
+    }
+
+    /**
+     * Finds the best move the engine can within a time budget
+     * @param state the game to find a move for
+     * @param budget the time the search may take
+     * @return the best move (see {@link Board#toMove(int, int)}), or -1 if the game is over
+     */
+    public int bestMove(TickTackToe state, Duration budget) {
+        return search(state, budget).getMove();
+    }
+
+    /**
+     * Searches one ply deeper at a time until the engine's depth is reached or the time budget runs out
+     * <br>
+     * The move returned is the best move of the last depth searched to completion
+     * @param state the game to find a move for
+     * @param budget the time the search may take
+     * @return the outcome of the search
+     */
+    public SearchResult search(TickTackToe state, Duration budget) {
+        return search(state, true, SearchWorker.deadlineAfter(budget));
+    }
+
+    /**
+     * Searches the given game
+     * @param state the game to find a move for
+     * @param iterative whether to deepen one ply at a time rather than search the engine's depth right away
+     * @param deadline the System.nanoTime() past which the search gives up
+     * @return the outcome of the search
+     */
+    private SearchResult search(TickTackToe state, boolean iterative, long deadline) {
+
+        // records the search for the flight recorder and metrics
+        final GameEvents.SearchEvent EVENT = new GameEvents.SearchEvent();
+        EVENT.begin();
+        final boolean METRICS = GameMetrics.isEnabled();
+        final long HITS = METRICS ? TABLE.getHits() : 0;
+        final long MISSES = METRICS ? TABLE.getMisses() : 0;
+
+        final SearchResult RESULT = searchPosition(state, iterative, deadline);
+
+        GameEvents.searched(EVENT, "alpha-beta", RESULT, METRICS ? TABLE.getHits() - HITS : 0,
+                            METRICS ? TABLE.getMisses() - MISSES : 0);
+        return RESULT;
+    }
+
+    /**
+     * Searches the given game
+     * @param state the game to find a move for
+     * @param iterative whether to deepen one ply at a time rather than search the engine's depth right away
+     * @param deadline the System.nanoTime() past which the search gives up
+     * @return the outcome of the search
+     */
+    private SearchResult searchPosition(TickTackToe state, boolean iterative, long deadline) {
+
+        final long START = System.nanoTime();
+        searchedNodes = 0;
+
+        // there is nothing to play once the game is over
+        if (state.winner() != state.EMPTY_TILE_KEY || !state.hasSpaceLeft()) {
+            return new SearchResult(-1, 0, 0, 0, System.nanoTime() - START);
+        }
+
+        // positions of the book are answered without searching
+        if (openingBook != null) {
+            final int BOOK_MOVE = openingBook.probe(state);
+            if (BOOK_MOVE >= 0) {
+                return new SearchResult(BOOK_MOVE, 0, 0, 0, System.nanoTime() - START);
+            }
+        }
+
+        // searches a copy of the game so the state can be played and taken back freely
+        final TickTackToe GAME = new TickTackToe(state);
+        final long KEY = GAME.getZobristHash();
+
+        // falls back on the most promising move if no search completes
+        int moveCount = WORKER.orderMoves(GAME, 0, TranspositionTable.moveOf(TABLE.probe(KEY)));
+        int bestMove = WORKER.movesAt(0)[0];
+        int bestScore = 0;
+        int depthReached = 0;
+
+        // a move which wins on the spot cannot be improved upon
+        if (WORKER.firstMoveWins(0)) {
+            return new SearchResult(bestMove, WIN_SCORE - 1, 1, 1, System.nanoTime() - START);
+        }
+
+        // searching further than the end of the game changes nothing
+        final int MAX_DEPTH = Math.min(SEARCH_DEPTH, moveCount);
+
+        for (int depth = iterative ? 1 : MAX_DEPTH; depth <= MAX_DEPTH; depth++) {
+
+            // tries the best move of the previous depth first
+            moveCount = WORKER.orderMoves(GAME, 0, bestMove);
+            final int[] MOVES = Arrays.copyOf(WORKER.movesAt(0), moveCount);
+
+            // the best score and the index of the first move reaching it
+            final int[] BEST = {-WIN_SCORE - 1, 0};
+            if (!searchRoot(GAME, MOVES, depth, deadline, BEST)) {
+                // an unfinished depth is thrown away
+                break;
+            }
+
+            bestMove = MOVES[BEST[1]];
+            bestScore = BEST[0];
+            depthReached = depth;
+
+            // remembers the root for the next search
+            TABLE.store(KEY, depth, TranspositionTable.EXACT, bestScore, bestMove);
+
+            // a proven win or loss cannot change with more depth
+            if (Math.abs(bestScore) > SearchWorker.WIN_THRESHOLD) {
+                break;
+            }
+        }
+
+        return new SearchResult(bestMove, bestScore, depthReached, searchedNodes, System.nanoTime() - START);
+    }
+
+    /**
+     * Searches every root move to the given depth
+     * @param game the root position
+     * @param moves the root moves, most promising first
+     * @param depth the number of plies to look ahead
+     * @param deadline the System.nanoTime() past which the search gives up
+     * @param best receives the best score and the index of the first move reaching it
+     * @return whether the search ran to completion
+     */
+    private boolean searchRoot(TickTackToe game, int[] moves, int depth, long deadline, int[] best) {
+
+        // searches the most promising move first, its score narrows the search of every other one
+        WORKER.startSearch(deadline);
+        searchRootMove(WORKER, game, moves, 0, depth, best);
+
+        // searches the remaining moves on this thread...
+        if (THREADS == 1 || moves.length == 1 || WORKER.isStopped()) {
+            for (int i = 1; i < moves.length && !WORKER.isStopped(); i++) {
+                searchRootMove(WORKER, game, moves, i, depth, best);
+            }
+            searchedNodes += WORKER.getSearchedNodes();
+            return !WORKER.isStopped();
+        }
+
+        // ...or shares them between the pool threads
+        searchedNodes += WORKER.getSearchedNodes();
+        return searchInParallel(game, moves, depth, deadline, best);
+    }
+
+    /**
+     * Searches every root move but the first one on the pool threads
+     * @param game the root position, which is only read while the pool searches
+     * @param moves the root moves, most promising first
+     * @param depth the number of plies to look ahead
+     * @param deadline the System.nanoTime() past which the search gives up
+     * @param best the best score and the index of the first move reaching it
+     * @return whether the search ran to completion
+     */
+    private boolean searchInParallel(TickTackToe game, int[] moves, int depth, long deadline, int[] best) {
+
+        // starts the pool threads on the first parallel search
+        if (pool == null) {
+            pool = new ForkJoinPool(THREADS);
+        }
+
+        // each task searches one move on its own copy of the root
+        final AtomicBoolean STOPPED = new AtomicBoolean();
+        final List<ForkJoinTask<Long>> TASKS = new ArrayList<>(moves.length - 1);
+        for (int i = 1; i < moves.length; i++) {
+            final int INDEX = i;
+            TASKS.add(ForkJoinTask.adapt(() -> {
+                final SearchWorker WORKER = POOL_WORKERS.get();
+                WORKER.startSearch(deadline);
+                searchRootMove(WORKER, new TickTackToe(game), moves, INDEX, depth, best);
+                if (WORKER.isStopped()) {
+                    STOPPED.set(true);
+                }
+                return WORKER.getSearchedNodes();
+            }));
+        }
+        pool.invoke(ForkJoinTask.adapt(() -> {
+            ForkJoinTask.invokeAll(TASKS);
+        }));
+
+        // adds up the positions visited by every task
+        for (ForkJoinTask<Long> task : TASKS) {
+            searchedNodes += task.join();
+        }
+        return !STOPPED.get();
+    }
+
+    /**
+     * Searches one root move and keeps it if it beats the best one so far
+     * <br>
+     * Moves listed after the best one only need to beat its score, moves listed before it only need to match it,
+     * so the move kept is always the first one with the best score, whichever order the moves finish in
+     * @param worker the worker searching the move
+     * @param game the root position, left as it was found
+     * @param moves the root moves, most promising first
+     * @param index the index of the move to search
+     * @param depth the number of plies to look ahead
+     * @param best the best score and the index of the first move reaching it
+     */
+    private void searchRootMove(SearchWorker worker, TickTackToe game, int[] moves, int index, int depth, int[] best) {
+
+        // root moves may be too small to ever reach a clock check of their own
+        if (worker.checkDeadline()) {
+            return;
+        }
+
+        // the lowest score which could change the best move
+        final int ALPHA;
+        synchronized (best) {
+            ALPHA = best[1] < index ? best[0] : best[0] - 1;
+        }
+
+        game.makeMove(moves[index]);
+        final int SCORE = -worker.negamax(game, depth - 1, -WIN_SCORE - 1, -ALPHA, 1);
+        game.unmakeMove(moves[index]);
+
+        // the score of an unfinished search is meaningless
+        if (worker.isStopped()) {
+            return;
+        }
+
+        // keeps the move if it beats the best one, or matches it while being listed first
+        synchronized (best) {
+            if (SCORE > best[0] || SCORE == best[0] && index < best[1]) {
+                best[0] = SCORE;
+                best[1] = index;
+            }
+        }
+    }
 }
-*/
@@ -0,0 +1,411 @@
+package TickTackToe;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Represents a Tick Tack Toe Board packed into bitboards
+ * <br>
+ * Boards of up to 8x8 tiles keep each player's pawns in a single long,
+ * larger boards keep them in fixed arrays of long words.
+ * Tile (x, y) is stored at bit (y * BOARD_DIMENSIONS + x)
+ */
+public class BitBoard {
+
+    // the largest dimension for which each player fits in a single long
+    static final int MAX_PACKED_DIMENSIONS = 8;
+
+    // the integers which represent the tiles on the board
+    protected final int EMPTY_TILE_KEY;
+    protected final int PLAYER_O_KEY;
+    protected final int PLAYER_X_KEY;
+
+    // the width and height of the board
+    protected final int BOARD_DIMENSIONS;
+
+    // the line masks shared by every board of the same dimensions
+    private final LineMasks LINE_MASKS;
+
+    // each player's pawns on boards up to 8x8
+    private long playerXBits;
+    private long playerOBits;
+
+    // each player's pawns on boards above 8x8 (null otherwise)
+    private final long[] PLAYER_X_WORDS;
+    private final long[] PLAYER_O_WORDS;
+
+    /**
+     * Creates a new instance of the BitBoard class
+     * <br>
+     * Valid Key Combination :
+     * <br>
+     * {empty tile key, player O key, player X key}
+     * <ul>
+     *      <li>-1, 0, 1
+     *      <li>0, -1, 1
+     *      <li>0, 1, -1
+     * </ul>
+     * @param dimension the size of the board
+     * @param EMPTY_TILE_KEY integer representing empty tiles in the board
+     * @param PLAYER_O_KEY integer representing player O in the board
+     * @param PLAYER_X_KEY integer representing player X in the board
+     */
+    BitBoard(int dimension, int EMPTY_TILE_KEY, int PLAYER_O_KEY, int PLAYER_X_KEY) {
+
+        // if the player and empty tile keys the same...
+        if (PLAYER_X_KEY == PLAYER_O_KEY || PLAYER_X_KEY == EMPTY_TILE_KEY || PLAYER_O_KEY == EMPTY_TILE_KEY) {
+            // throws an error
+            throw new IllegalArgumentException("Player and empty tile keys cannot be identical");
+        }
+
+        // if the board cannot hold a single tile...
+        if (dimension < 1) {
+            // throws an error
+            throw new IllegalArgumentException("Board dimensions must be strictly positive");
+        }
+
+        // assigns the board's dimension and keys
+        this.BOARD_DIMENSIONS = dimension;
+        this.EMPTY_TILE_KEY = EMPTY_TILE_KEY;
+        this.PLAYER_O_KEY = PLAYER_O_KEY;
+        this.PLAYER_X_KEY = PLAYER_X_KEY;
+
+        // gets the line masks for boards of that size
+        this.LINE_MASKS = LineMasks.forDimension(dimension);
+
+        // only boards above 8x8 need word arrays
+        if (dimension > MAX_PACKED_DIMENSIONS) {
+            PLAYER_X_WORDS = new long[LINE_MASKS.WORD_COUNT];
+            PLAYER_O_WORDS = new long[LINE_MASKS.WORD_COUNT];
+        } else {
+            PLAYER_X_WORDS = null;
+            PLAYER_O_WORDS = null;
+        }
+    }
+
+    /**
+     * Creates a packed copy of a Tick Tack Toe game
+     * @param game the game to copy
+     */
+    BitBoard(TickTackToe game) {
+
+        this(game.getBOARD_DIMENSIONS(), game.EMPTY_TILE_KEY, game.PLAYER_O_KEY, game.PLAYER_X_KEY);
+
+        // bit boards only hold square boards
+        if (game.getBOARD_WIDTH() != game.getBOARD_HEIGHT()) {
+            throw new IllegalArgumentException("Only square boards can be packed");
+        }
+
+        // copies every tile of the game
+        for (int y = 0; y < BOARD_DIMENSIONS; y++) {
+            for (int x = 0; x < BOARD_DIMENSIONS; x++) {
+                play(y, x, game.getTile(y, x));
+            }
+        }
+    }
+
+    /**
+     * Gets the empty tile key
+     * @return the empty tile key
+     */
+    public int getEMPTY_TILE_KEY() {
+        return EMPTY_TILE_KEY;
+    }
+
+    /**
+     * Gets the board dimensions
+     * @return the board dimensions
+     */
+    public int getBOARD_DIMENSIONS() {
+        return BOARD_DIMENSIONS;
+    }
+
+    /**
+     * Gets player X's pawns on boards up to 8x8
+     * @return the bits of player X
+     */
+    long getPlayerXBits() {
+        return playerXBits;
+    }
+
+    /**
+     * Gets player O's pawns on boards up to 8x8
+     * @return the bits of player O
+     */
+    long getPlayerOBits() {
+        return playerOBits;
+    }
+
+    /**
+     * Places a pawn on the specified tile
+     * @param y y-coordinates of the pawn
+     * @param x x-coordinates of the pawn
+     * @param pawn integer to represent the pawn on the board
+     */
+    void play(int y, int x, int pawn) {
+
+        final int INDEX = tileIndex(y, x);
+
+        // the pawn must be one of the board's keys
+        if (pawn != EMPTY_TILE_KEY && pawn != PLAYER_O_KEY && pawn != PLAYER_X_KEY) {
+            throw new IllegalArgumentException("Specified tile is invalid");
+        }
+
+        // whether the tile ends up belonging to either player
+        final long X_BIT = pawn == PLAYER_X_KEY ? 1L : 0L;
+        final long O_BIT = pawn == PLAYER_O_KEY ? 1L : 0L;
+
+        // overwrites the tile for both players
+        if (PLAYER_X_WORDS == null) {
+            playerXBits = playerXBits & ~(1L << INDEX) | X_BIT << INDEX;
+            playerOBits = playerOBits & ~(1L << INDEX) | O_BIT << INDEX;
+        } else {
+            final int WORD = INDEX >>> 6;
+            PLAYER_X_WORDS[WORD] = PLAYER_X_WORDS[WORD] & ~(1L << INDEX) | X_BIT << INDEX;
+            PLAYER_O_WORDS[WORD] = PLAYER_O_WORDS[WORD] & ~(1L << INDEX) | O_BIT << INDEX;
+        }
+    }
+
+    /**
+     * Gets the specified tile
+     * @param y the y-coordinate of the tile
+     * @param x the x-coordinate of the tile
+     * @return the tile
+     */
+    int getTile(int y, int x) {
+
+        final int INDEX = tileIndex(y, x);
+
+        // reads the tile's bit for both players
+        final long X_BIT;
+        final long O_BIT;
+        if (PLAYER_X_WORDS == null) {
+            X_BIT = playerXBits >>> INDEX & 1L;
+            O_BIT = playerOBits >>> INDEX & 1L;
+        } else {
+            X_BIT = PLAYER_X_WORDS[INDEX >>> 6] >>> INDEX & 1L;
+            O_BIT = PLAYER_O_WORDS[INDEX >>> 6] >>> INDEX & 1L;
+        }
+
+        // converts the bits back to the board's keys
+        if (X_BIT != 0) {
+            return PLAYER_X_KEY;
+        }
+        if (O_BIT != 0) {
+            return PLAYER_O_KEY;
+        }
+        return EMPTY_TILE_KEY;
+    }
+
+    /**
+     * Determines whether a tile on the board is playable (i.e. :if it is empty)
+     * @param y the y-coordinates of the tile
+     * @param x the x-coordinates of the tile
+     * @return whether the tile is playable
+     */
+    public boolean isPlayableTile(int y, int x) {
+        // tries and access the tile
+        try {
+            // if the tile is empty it is playable
+            return getTile(y, x) == EMPTY_TILE_KEY;
+        } catch (IndexOutOfBoundsException e) {
+            // if there was an error in specifying the coordinates
+            // the tile is by default unplayable
+            return false;
+        }
+    }
+
+    /**
+     * Checks the board for any empty tiles
+     * @return whether the board still has empty tiles
+     */
+    boolean hasSpaceLeft() {
+        // the board is full once every tile belongs to a player
+        if (PLAYER_X_WORDS == null) {
+            return (playerXBits | playerOBits) != LINE_MASKS.FULL_BITS;
+        }
+        for (int i = 0; i < PLAYER_X_WORDS.length; i++) {
+            if ((PLAYER_X_WORDS[i] | PLAYER_O_WORDS[i]) != LINE_MASKS.FULL_WORDS[i]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks for win conditions for both players
+     * <ul>
+     *     <li>EMPTY_TILE_KEY : no player has won
+     *     <li>PLAYER_O_KEY : player O has won
+     *     <li>PLAYER_X_KEY : player X has won
+     * </ul>
+     * @return which player has won or if none has won
+     */
+    public int winingPlayer() {
+        // checks whether player X has won
+        if (hasFullLine(playerXBits, PLAYER_X_WORDS)) {
+            return PLAYER_X_KEY;
+        }
+        // checks whether player O has won
+        if (hasFullLine(playerOBits, PLAYER_O_WORDS)) {
+            return PLAYER_O_KEY;
+        }
+
+        // no player has won yet
+        return EMPTY_TILE_KEY;
+    }
+
+    /**
+     * Determines whether a player's pawns cover an entire row, column or main diagonal
+     * @param bits the player's pawns on boards up to 8x8
+     * @param words the player's pawns on boards above 8x8
+     * @return whether the player owns a full line
+     */
+    private boolean hasFullLine(long bits, long[] words) {
+
+        // small boards compare against one mask per line
+        if (words == null) {
+            boolean fullLine = false;
+            for (long mask : LINE_MASKS.LINE_BITS) {
+                fullLine |= (bits & mask) == mask;
+            }
+            return fullLine;
+        }
+
+        // large boards compare each word a line goes through
+        for (int line = 0; line < LINE_MASKS.LINE_WORD_BITS.length; line++) {
+            final int[] LINE_WORDS = LINE_MASKS.LINE_WORDS[line];
+            final long[] LINE_WORD_BITS = LINE_MASKS.LINE_WORD_BITS[line];
+
+            boolean fullLine = true;
+            for (int i = 0; i < LINE_WORDS.length; i++) {
+                fullLine &= (words[LINE_WORDS[i]] & LINE_WORD_BITS[i]) == LINE_WORD_BITS[i];
+            }
+            if (fullLine) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Converts coordinates into the index of their bit
+     * @param y the y-coordinate of the tile
+     * @param x the x-coordinate of the tile
+     * @return the index of the tile's bit
+     */
+    private int tileIndex(int y, int x) {
+
+        // if the coordinates are invalid...
+        if (x < 0 || y < 0 || x >= BOARD_DIMENSIONS || y >= BOARD_DIMENSIONS) {
+
+            // creates a new error message
+            String errorMessage = String.format("x and y coordinates of pawn must be comprised between 0 and %s",
+                                                BOARD_DIMENSIONS - 1);
+
+            // warns the user that the x and y arguments are invalid
+            throw new IllegalArgumentException(errorMessage);
+        }
+
+        return y * BOARD_DIMENSIONS + x;
+    }
+
+    /**
+     * The masks of every row, column and main diagonal for one board size
+     */
+    private static final class LineMasks {
+
+        // line masks already computed, by board dimensions
+        private static final ConcurrentHashMap<Integer, LineMasks> CACHE = new ConcurrentHashMap<>();
+
+        // number of long words needed for one player on boards above 8x8
+        final int WORD_COUNT;
+
+        // boards up to 8x8 : one mask per line and the mask of the whole board
+        final long[] LINE_BITS;
+        final long FULL_BITS;
+
+        // boards above 8x8 : the words each line goes through and its bits within them
+        final int[][] LINE_WORDS;
+        final long[][] LINE_WORD_BITS;
+        final long[] FULL_WORDS;
+
+        /**
+         * Gets the line masks of boards of the given size
+         * @param dimension the size of the board
+         * @return the line masks
+         */
+        static LineMasks forDimension(int dimension) {
+            return CACHE.computeIfAbsent(dimension, LineMasks::new);
+        }
+
+        /**
+         * Computes the line masks of boards of the given size
+         * @param dimension the size of the board
+         */
+        private LineMasks(int dimension) {
+
+            final int TILES = dimension * dimension;
+            final int LINES = 2 * dimension + 2;
+            WORD_COUNT = (TILES + 63) >>> 6;
+
+            // tile indexes of every row, column and main diagonal
+            final int[][] LINE_TILES = new int[LINES][dimension];
+            for (int i = 0; i < dimension; i++) {
+                for (int j = 0; j < dimension; j++) {
+                    LINE_TILES[i][j] = i * dimension + j;
+                    LINE_TILES[dimension + i][j] = j * dimension + i;
+                }
+                LINE_TILES[2 * dimension][i] = i * dimension + i;
+                LINE_TILES[2 * dimension + 1][i] = i * dimension + dimension - 1 - i;
+            }
+
+            // boards up to 8x8 fit each line in a single long
+            if (dimension <= MAX_PACKED_DIMENSIONS) {
+                LINE_BITS = new long[LINES];
+                for (int line = 0; line < LINES; line++) {
+                    for (int tile : LINE_TILES[line]) {
+                        LINE_BITS[line] |= 1L << tile;
+                    }
+                }
+                FULL_BITS = TILES == 64 ? -1L : (1L << TILES) - 1;
+                LINE_WORDS = null;
+                LINE_WORD_BITS = null;
+                FULL_WORDS = null;
+                return;
+            }
+
+            // larger boards only keep the words each line goes through
+            LINE_BITS = null;
+            FULL_BITS = 0;
+            LINE_WORDS = new int[LINES][];
+            LINE_WORD_BITS = new long[LINES][];
+            for (int line = 0; line < LINES; line++) {
+                final long[] WORDS = new long[WORD_COUNT];
+                int usedWords = 0;
+                for (int tile : LINE_TILES[line]) {
+                    if (WORDS[tile >>> 6] == 0) {
+                        usedWords++;
+                    }
+                    WORDS[tile >>> 6] |= 1L << tile;
+                }
+
+                LINE_WORDS[line] = new int[usedWords];
+                LINE_WORD_BITS[line] = new long[usedWords];
+                for (int word = 0, i = 0; word < WORD_COUNT; word++) {
+                    if (WORDS[word] != 0) {
+                        LINE_WORDS[line][i] = word;
+                        LINE_WORD_BITS[line][i++] = WORDS[word];
+                    }
+                }
+            }
+
+            // every word is full except the trailing bits of the last one
+            FULL_WORDS = new long[WORD_COUNT];
+            Arrays.fill(FULL_WORDS, -1L);
+            if ((TILES & 63) != 0) {
+                FULL_WORDS[WORD_COUNT - 1] = (1L << (TILES & 63)) - 1;
+            }
+        }
+    }
+}
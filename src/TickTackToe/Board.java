@@ -1,6 +1,7 @@
 package TickTackToe;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Represents a Tick Tack Toe Board
@@ -17,9 +18,31 @@ public class Board {
     // the integers which represent the empty tiles on the board
     protected final int EMPTY_TILE_KEY;
 
-    // the width and height of the board
+    // the width and height of square boards (the longest side of rectangular ones)
     protected final int BOARD_DIMENSIONS;
 
+    // the number of columns and rows of the board
+    protected final int BOARD_WIDTH;
+    protected final int BOARD_HEIGHT;
+
+    // seed of the random keys used to hash positions, fixed so hashes are stable between runs
+    private static final long ZOBRIST_SEED = 0x5EED_71C7_AC70_E000L;
+
+    // zobrist keys already generated, by number of tiles
+    private static final ConcurrentHashMap<Integer, long[]> ZOBRIST_CACHE = new ConcurrentHashMap<>();
+
+    // one random key per tile and pawn value (-1, 0 or 1), shared by every board of the same size
+    private final long[] ZOBRIST_KEYS;
+
+    // the zobrist hash of the position : the XOR of the keys of every pawn on the board
+    protected long zobristHash;
+
+    // the empty tiles, as moves, and where each tile sits in that list
+    // only the first freeCount entries are empty, the tiles taken since follow in the order they were taken
+    private final int[] FREE_CELLS;
+    private final int[] FREE_POSITIONS;
+    private int freeCount;
+
     /**
      * Gets the empty tile key
      * @return the empty tile key
@@ -36,6 +59,22 @@ public class Board {
         return BOARD_DIMENSIONS;
     }
 
+    /**
+     * Gets the board width
+     * @return the number of columns of the board
+     */
+    public int getBOARD_WIDTH() {
+        return BOARD_WIDTH;
+    }
+
+    /**
+     * Gets the board height
+     * @return the number of rows of the board
+     */
+    public int getBOARD_HEIGHT() {
+        return BOARD_HEIGHT;
+    }
+
     /**
      * Creates a new instance of the Board class
      * @param dimension the size of the board
@@ -44,6 +83,9 @@ public class Board {
 
         // assigns the board's dimension
         this.BOARD_DIMENSIONS = dimension;
+        this.BOARD_WIDTH = dimension;
+        this.BOARD_HEIGHT = dimension;
+        this.ZOBRIST_KEYS = zobristKeys(dimension * dimension);
 
         // assign the empty tile key to default of
         // empty = -1
@@ -56,6 +98,10 @@ public class Board {
             Arrays.fill(row, -1);
         }
 
+        // every tile starts out free
+        FREE_CELLS = new int[dimension * dimension];
+        FREE_POSITIONS = new int[dimension * dimension];
+        freeEveryCell();
     }
 
     /**
@@ -73,9 +119,37 @@ public class Board {
      * @param EMPTY_TILE_KEY integer representing empty tiles in the board
      */
     Board(int dimension, int EMPTY_TILE_KEY) {
+        this(dimension, dimension, EMPTY_TILE_KEY);
+    }
 
-        // assigns the board's dimension
-        this.BOARD_DIMENSIONS = dimension;
+    /**
+     * Creates a new instance of a rectangular Board
+     * <br>
+     * Valid Key Combination :
+     * <br>
+     * {empty tile key, player O key, player X key}
+     * <ul>
+     *      <li>-1, 0, 1
+     *      <li>0, -1, 1
+     *      <li>0, 1, -1
+     * </ul>
+     * @param width the number of columns of the board
+     * @param height the number of rows of the board
+     * @param EMPTY_TILE_KEY integer representing empty tiles in the board
+     */
+    Board(int width, int height, int EMPTY_TILE_KEY) {
+
+        // if the board has no tile...
+        if (width < 1 || height < 1) {
+            // throws an error
+            throw new IllegalArgumentException("Board width and height must be at least 1");
+        }
+
+        // assigns the board's dimensions
+        this.BOARD_WIDTH = width;
+        this.BOARD_HEIGHT = height;
+        this.BOARD_DIMENSIONS = Math.max(width, height);
+        this.ZOBRIST_KEYS = zobristKeys(width * height);
 
         // list containing all the valid value for the keys
         int[] validKeys = {-1, 0};
@@ -93,11 +167,70 @@ public class Board {
         this.EMPTY_TILE_KEY = EMPTY_TILE_KEY;
 
         // creates the board
-        BOARD = new int[BOARD_DIMENSIONS][BOARD_DIMENSIONS];
+        BOARD = new int[BOARD_HEIGHT][BOARD_WIDTH];
         // populates the board with empty tiles
         for (int[] row : BOARD) {
             Arrays.fill(row, EMPTY_TILE_KEY);
         }
+
+        // every tile starts out free
+        FREE_CELLS = new int[width * height];
+        FREE_POSITIONS = new int[width * height];
+        freeEveryCell();
+    }
+
+    /**
+     * Creates a copy of another board
+     * @param board the board to copy
+     */
+    Board(Board board) {
+
+        // copies the board's dimensions and keys
+        this.BOARD_DIMENSIONS = board.BOARD_DIMENSIONS;
+        this.BOARD_WIDTH = board.BOARD_WIDTH;
+        this.BOARD_HEIGHT = board.BOARD_HEIGHT;
+        this.EMPTY_TILE_KEY = board.EMPTY_TILE_KEY;
+        this.ZOBRIST_KEYS = board.ZOBRIST_KEYS;
+        this.zobristHash = board.zobristHash;
+
+        // copies every row of the board
+        BOARD = new int[BOARD_HEIGHT][];
+        for (int i = 0; i < BOARD_HEIGHT; i++) {
+            BOARD[i] = board.BOARD[i].clone();
+        }
+
+        // copies the free tiles
+        FREE_CELLS = board.FREE_CELLS.clone();
+        FREE_POSITIONS = board.FREE_POSITIONS.clone();
+        freeCount = board.freeCount;
+    }
+
+    /**
+     * Converts coordinates into a move, numbering tiles row by row
+     * @param x the x-coordinate of the tile
+     * @param y the y-coordinate of the tile
+     * @return the move
+     */
+    public int toMove(int x, int y) {
+        return y * BOARD_WIDTH + x;
+    }
+
+    /**
+     * Gets the x-coordinate of a move
+     * @param move the move
+     * @return the x-coordinate of the move's tile
+     */
+    public int moveX(int move) {
+        return move % BOARD_WIDTH;
+    }
+
+    /**
+     * Gets the y-coordinate of a move
+     * @param move the move
+     * @return the y-coordinate of the move's tile
+     */
+    public int moveY(int move) {
+        return move / BOARD_WIDTH;
     }
 
     /**
@@ -111,18 +244,152 @@ public class Board {
         // tries and place a pawn onto the board
         try {
             // places the pawn at the specified coordinates
+            final int OLD_PAWN = BOARD[y][x];
             BOARD[y][x] = pawn;
-        } catch (IndexOutOfBoundsException e) { // if the coordinates are invalid...
 
-            // creates a new error message
-            String errorMessage = String.format("x and y coordinates of pawn must be comprised between 0 and %s",
-                                                BOARD_DIMENSIONS - 1);
+            // swaps the key of the previous pawn for the key of the new one
+            zobristHash ^= zobristKey(y, x, OLD_PAWN) ^ zobristKey(y, x, pawn);
+
+            // keeps the free tiles in step with the board
+            if (OLD_PAWN == EMPTY_TILE_KEY && pawn != EMPTY_TILE_KEY) {
+                takeCell(toMove(x, y));
+            } else if (OLD_PAWN != EMPTY_TILE_KEY && pawn == EMPTY_TILE_KEY) {
+                releaseCell(toMove(x, y));
+            }
+        } catch (IndexOutOfBoundsException e) { // if the coordinates are invalid...
 
             // warns the user that the x and y arguments are invalid
-            throw new IllegalArgumentException(errorMessage);
+            throw new IllegalArgumentException(outOfBoundsMessage());
         }
     }
 
+    /**
+     * Empties every tile of the board
+     */
+    void clear() {
+        for (int[] row : BOARD) {
+            Arrays.fill(row, EMPTY_TILE_KEY);
+        }
+        zobristHash = 0;
+        freeEveryCell();
+    }
+
+    /**
+     * Gets the number of empty tiles
+     * @return the number of empty tiles
+     */
+    public int getFreeCellCount() {
+        return freeCount;
+    }
+
+    /**
+     * Gets an empty tile by its index among the empty tiles
+     * <br>
+     * The order of the empty tiles changes as pawns are placed and removed
+     * @param index the index of the tile, between 0 and {@link #getFreeCellCount()} - 1
+     * @return the tile, as a move
+     */
+    int getFreeCell(int index) {
+        return FREE_CELLS[index];
+    }
+
+    /**
+     * Picks an empty tile uniformly at random
+     * @param random the random source
+     * @return the tile as a move (see {@link #toMove(int, int)}), or -1 if the board is full
+     */
+    public int randomFreeCell(SplittableRandom random) {
+        return freeCount == 0 ? -1 : FREE_CELLS[random.nextInt(freeCount)];
+    }
+
+    /**
+     * Marks every tile as free
+     */
+    private void freeEveryCell() {
+        for (int move = 0; move < FREE_CELLS.length; move++) {
+            FREE_CELLS[move] = move;
+            FREE_POSITIONS[move] = move;
+        }
+        freeCount = FREE_CELLS.length;
+    }
+
+    /**
+     * Removes a tile from the free tiles, leaving it just past the last free one
+     * @param move the tile which received a pawn
+     */
+    private void takeCell(int move) {
+        freeCount--;
+        swapCells(FREE_POSITIONS[move], freeCount);
+    }
+
+    /**
+     * Puts a tile back among the free tiles
+     * <br>
+     * Taking back the last pawn placed puts its tile back where it was, so moves played and taken back
+     * in order leave the free tiles exactly as they were
+     * @param move the tile which lost its pawn
+     */
+    private void releaseCell(int move) {
+        swapCells(FREE_POSITIONS[move], freeCount);
+        freeCount++;
+    }
+
+    /**
+     * Swaps two entries of the free tile list
+     * @param first the index of the first entry
+     * @param second the index of the second entry
+     */
+    private void swapCells(int first, int second) {
+        final int FIRST_MOVE = FREE_CELLS[first];
+        final int SECOND_MOVE = FREE_CELLS[second];
+        FREE_CELLS[first] = SECOND_MOVE;
+        FREE_CELLS[second] = FIRST_MOVE;
+        FREE_POSITIONS[SECOND_MOVE] = first;
+        FREE_POSITIONS[FIRST_MOVE] = second;
+    }
+
+    /**
+     * Gets the zobrist hash of the position, kept up to date by every pawn placed on the board
+     * <br>
+     * Boards of the same size holding the same pawns always share the same hash
+     * @return the hash of the position
+     */
+    public long getZobristHash() {
+        return zobristHash;
+    }
+
+    /**
+     * Gets the zobrist key of a pawn on a tile
+     * @param y the y-coordinate of the tile
+     * @param x the x-coordinate of the tile
+     * @param pawn the pawn on the tile
+     * @return the key of the pawn, 0 for empty tiles
+     */
+    long zobristKey(int y, int x, int pawn) {
+        // empty tiles do not take part in the hash
+        if (pawn == EMPTY_TILE_KEY) {
+            return 0;
+        }
+        return ZOBRIST_KEYS[(y * BOARD_WIDTH + x) * 3 + pawn + 1];
+    }
+
+    /**
+     * Gets the zobrist keys of boards with the given number of tiles
+     * @param tiles the number of tiles of the board
+     * @return the keys, three per tile
+     */
+    private static long[] zobristKeys(int tiles) {
+        return ZOBRIST_CACHE.computeIfAbsent(tiles, count -> {
+            // draws the keys from a fixed seed
+            SplittableRandom random = new SplittableRandom(ZOBRIST_SEED);
+            long[] keys = new long[count * 3];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = random.nextLong();
+            }
+            return keys;
+        });
+    }
+
     /**
      * Gets the entire board
      * @return the board
@@ -154,32 +421,32 @@ public class Board {
             return BOARD[y][x];
         } catch (IndexOutOfBoundsException e) { // if the coordinates are invalid...
 
-            // creates a new error message
-            String errorMessage = String.format("x and y coordinates of pawn must be comprised between 0 and %s",
-                    BOARD_DIMENSIONS - 1);
-
             // warns the user that the x and y arguments are invalid
-            throw new IllegalArgumentException(errorMessage);
+            throw new IllegalArgumentException(outOfBoundsMessage());
         }
     }
 
+    /**
+     * Creates the error message for coordinates outside the board
+     * @return the error message
+     */
+    private String outOfBoundsMessage() {
+        // square boards share the same bounds for both coordinates
+        if (BOARD_WIDTH == BOARD_HEIGHT) {
+            return String.format("x and y coordinates of pawn must be comprised between 0 and %s",
+                                 BOARD_DIMENSIONS - 1);
+        }
+
+        return String.format("x and y coordinates of pawn must be comprised between 0 and %s and 0 and %s",
+                             BOARD_WIDTH - 1, BOARD_HEIGHT - 1);
+    }
+
     /**
      * Checks the board for any empty tiles
      * @return whether the board still has empty tiles
      */
     boolean hasSpaceLeft() {
-        // loops through each row of the board...
-        for (int[] row : BOARD) {
-            // looks through each tile of that row...
-            for (int tile : row) {
-                // if the tile contains the empty tile key, it is empty
-                if (tile == EMPTY_TILE_KEY) {
-                    return true;
-                }
-            }
-        }
-
-        // the board has no empty tiles left
-        return false;
+        // the free tiles are kept up to date as pawns are placed
+        return freeCount > 0;
     }
 }
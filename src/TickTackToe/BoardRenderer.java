@@ -0,0 +1,157 @@
+package TickTackToe;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Draws the board of a game as text
+ * <br>
+ * Tiles are looked up in a glyph table built once, and written straight into the given {@link Appendable}
+ * or {@link ByteBuffer}, so drawing a board creates no strings. Each row is drawn as "X _ O " and rows are
+ * separated by a line feed, the format of {@link TickTackToe#toString()}.
+ * <br>
+ * On ANSI terminals, {@link #renderChanges(Appendable)} redraws only the tiles which changed since the last frame
+ */
+public class BoardRenderer {
+
+    // the ANSI control sequence introducer
+    private static final String ESCAPE = "\u001B[";
+
+    // value of the tiles of a frame which has not been drawn yet
+    private static final int NOT_DRAWN = Integer.MIN_VALUE;
+
+    // the game whose board is drawn
+    private final TickTackToe GAME;
+
+    // the glyph of each key, indexed by key + 1
+    private final char[] GLYPHS = new char[3];
+    private final byte[] GLYPH_BYTES = new byte[3];
+
+    // the tiles as they were last drawn by renderChanges, created on first use
+    private int[] frame;
+
+    /**
+     * Creates a renderer of a game's board
+     * @param game the game to draw
+     */
+    public BoardRenderer(TickTackToe game) {
+        this.GAME = game;
+
+        // keys are always -1, 0 or 1
+        GLYPHS[game.EMPTY_TILE_KEY + 1] = '_';
+        GLYPHS[game.PLAYER_O_KEY + 1] = 'O';
+        GLYPHS[game.PLAYER_X_KEY + 1] = 'X';
+        for (int i = 0; i < GLYPHS.length; i++) {
+            GLYPH_BYTES[i] = (byte) GLYPHS[i];
+        }
+    }
+
+    /**
+     * Gets the number of characters of a drawn board
+     * @return the length of the board as text
+     */
+    public int renderedLength() {
+        // two characters per tile, and a line feed between rows
+        return GAME.BOARD_HEIGHT * (2 * GAME.BOARD_WIDTH + 1) - 1;
+    }
+
+    /**
+     * Draws the whole board
+     * @param out where to draw the board
+     * @throws IOException if the board could not be written
+     */
+    public void render(Appendable out) throws IOException {
+        for (int y = 0; y < GAME.BOARD_HEIGHT; y++) {
+            // separates the rows, without a line feed after the last one
+            if (y > 0) {
+                out.append('\n');
+            }
+            final int[] ROW = GAME.BOARD[y];
+            for (int x = 0; x < GAME.BOARD_WIDTH; x++) {
+                out.append(GLYPHS[ROW[x] + 1]).append(' ');
+            }
+        }
+    }
+
+    /**
+     * Draws the whole board as ASCII bytes
+     * @param out where to draw the board, with at least {@link #renderedLength()} bytes remaining
+     * @throws BufferOverflowException if the buffer is too small, in which case nothing is written
+     */
+    public void render(ByteBuffer out) {
+
+        // if the board does not fit...
+        if (out.remaining() < renderedLength()) {
+            // throws an error
+            throw new BufferOverflowException();
+        }
+
+        for (int y = 0; y < GAME.BOARD_HEIGHT; y++) {
+            // separates the rows, without a line feed after the last one
+            if (y > 0) {
+                out.put((byte) '\n');
+            }
+            final int[] ROW = GAME.BOARD[y];
+            for (int x = 0; x < GAME.BOARD_WIDTH; x++) {
+                out.put(GLYPH_BYTES[ROW[x] + 1]).put((byte) ' ');
+            }
+        }
+    }
+
+    /**
+     * Draws the board on an ANSI terminal, redrawing only the tiles which changed since the last frame
+     * <br>
+     * The first frame clears the screen and draws the whole board in its top left corner.
+     * Every frame leaves the cursor on the line below the board, with the rest of the screen cleared
+     * @param out the terminal
+     * @throws IOException if the board could not be written
+     */
+    public void renderChanges(Appendable out) throws IOException {
+
+        // the first frame draws everything
+        if (frame == null) {
+            frame = new int[GAME.BOARD_WIDTH * GAME.BOARD_HEIGHT];
+            Arrays.fill(frame, NOT_DRAWN);
+        }
+        if (frame[0] == NOT_DRAWN) {
+            out.append(ESCAPE).append("2J").append(ESCAPE).append("H");
+            render(out);
+            for (int y = 0; y < GAME.BOARD_HEIGHT; y++) {
+                System.arraycopy(GAME.BOARD[y], 0, frame, y * GAME.BOARD_WIDTH, GAME.BOARD_WIDTH);
+            }
+        } else {
+            // moves the cursor to each changed tile, rows and columns counting from 1
+            for (int y = 0; y < GAME.BOARD_HEIGHT; y++) {
+                final int[] ROW = GAME.BOARD[y];
+                final int START = y * GAME.BOARD_WIDTH;
+
+                // skips unchanged rows with a single bulk comparison
+                final int FIRST = Arrays.mismatch(ROW, 0, GAME.BOARD_WIDTH, frame, START, START + GAME.BOARD_WIDTH);
+                if (FIRST < 0) {
+                    continue;
+                }
+                for (int x = FIRST; x < GAME.BOARD_WIDTH; x++) {
+                    if (ROW[x] != frame[START + x]) {
+                        frame[START + x] = ROW[x];
+                        out.append(ESCAPE).append(Integer.toString(y + 1)).append(';')
+                           .append(Integer.toString(2 * x + 1)).append('H').append(GLYPHS[ROW[x] + 1]);
+                    }
+                }
+            }
+        }
+
+        // leaves the cursor below the board and clears whatever was written there
+        out.append(ESCAPE).append(Integer.toString(GAME.BOARD_HEIGHT + 1)).append(";1H").append(ESCAPE).append("J");
+    }
+
+    /**
+     * Forgets the last frame, so that the next call to {@link #renderChanges(Appendable)} redraws the whole board
+     */
+    public void invalidate() {
+        if (frame != null) {
+            frame[0] = NOT_DRAWN;
+        }
+    }
+}
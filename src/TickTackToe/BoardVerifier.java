@@ -0,0 +1,385 @@
+package TickTackToe;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Verifies a whole board at once, such as a position imported from outside, and keeps what it found
+ * <br>
+ * Every row and column is reduced to the sum of its tiles and the sum of their squares, and every row to its
+ * minimum and maximum. Tiles being -1, 0 or 1, the two sums give the number of tiles of each key,
+ * and the extremes catch any other value.
+ * The reductions are plain loops over int arrays which the JIT compiles to SIMD instructions.
+ * Rows are scanned one at a time, columns in strips narrow enough for their sums to stay in the L1 cache,
+ * and large boards are split between the workers of a {@link ForkJoinPool}
+ */
+public class BoardVerifier {
+
+    // the number of columns scanned together, whose two sums take up 2 kB
+    private static final int STRIP_COLUMNS = 256;
+
+    // the number of tiles below which a scan is not split any further
+    private static final int SPLIT_TILES = 1 << 16;
+
+    // the keys of the board
+    private final int EMPTY_TILE_KEY;
+    private final int PLAYER_O_KEY;
+    private final int PLAYER_X_KEY;
+
+    // the number of columns and rows of the board
+    private final int BOARD_WIDTH;
+    private final int BOARD_HEIGHT;
+
+    // the reductions of every row
+    private final int[] ROW_SUMS;
+    private final int[] ROW_SQUARES;
+    private final int[] ROW_MINIMUMS;
+    private final int[] ROW_MAXIMUMS;
+
+    // the reductions of every column
+    private final int[] COLUMN_SUMS;
+    private final int[] COLUMN_SQUARES;
+
+    /**
+     * Scans a board
+     * @param board the tiles, row by row, every row being as long as the first
+     * @param EMPTY_TILE_KEY integer representing empty tiles in the board
+     * @param PLAYER_O_KEY integer representing player O in the board
+     * @param PLAYER_X_KEY integer representing player X in the board
+     * @param pool the pool scanning large boards
+     */
+    private BoardVerifier(int[][] board, int EMPTY_TILE_KEY, int PLAYER_O_KEY, int PLAYER_X_KEY, ForkJoinPool pool) {
+
+        this.EMPTY_TILE_KEY = EMPTY_TILE_KEY;
+        this.PLAYER_O_KEY = PLAYER_O_KEY;
+        this.PLAYER_X_KEY = PLAYER_X_KEY;
+        this.BOARD_HEIGHT = board.length;
+        this.BOARD_WIDTH = board[0].length;
+
+        ROW_SUMS = new int[BOARD_HEIGHT];
+        ROW_SQUARES = new int[BOARD_HEIGHT];
+        ROW_MINIMUMS = new int[BOARD_HEIGHT];
+        ROW_MAXIMUMS = new int[BOARD_HEIGHT];
+        COLUMN_SUMS = new int[BOARD_WIDTH];
+        COLUMN_SQUARES = new int[BOARD_WIDTH];
+
+        // small boards are not worth handing over to other threads
+        final RecursiveAction ROWS = new RowScan(board, 0, BOARD_HEIGHT);
+        final RecursiveAction COLUMNS = new ColumnScan(board, 0, (BOARD_WIDTH + STRIP_COLUMNS - 1) / STRIP_COLUMNS);
+        if ((long) BOARD_WIDTH * BOARD_HEIGHT <= SPLIT_TILES) {
+            ROWS.invoke();
+            COLUMNS.invoke();
+        } else {
+            pool.invoke(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    invokeAll(ROWS, COLUMNS);
+                }
+            });
+        }
+    }
+
+    /**
+     * Verifies the board of a game on the common pool
+     * @param game the game whose board is verified
+     * @return the verification
+     */
+    public static BoardVerifier verify(TickTackToe game) {
+        return new BoardVerifier(game.BOARD, game.EMPTY_TILE_KEY, game.PLAYER_O_KEY, game.PLAYER_X_KEY,
+                                 ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Verifies a board on the common pool
+     * <br>
+     * Valid Key Combination :
+     * <br>
+     * {empty tile key, player O key, player X key}
+     * <ul>
+     *      <li>-1, 0, 1
+     *      <li>0, -1, 1
+     *      <li>0, 1, -1
+     * </ul>
+     * @param board the tiles, row by row
+     * @param EMPTY_TILE_KEY integer representing empty tiles in the board
+     * @param PLAYER_O_KEY integer representing player O in the board
+     * @param PLAYER_X_KEY integer representing player X in the board
+     * @return the verification
+     */
+    public static BoardVerifier verify(int[][] board, int EMPTY_TILE_KEY, int PLAYER_O_KEY, int PLAYER_X_KEY) {
+        return verify(board, EMPTY_TILE_KEY, PLAYER_O_KEY, PLAYER_X_KEY, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Verifies a board
+     * @param board the tiles, row by row
+     * @param EMPTY_TILE_KEY integer representing empty tiles in the board
+     * @param PLAYER_O_KEY integer representing player O in the board
+     * @param PLAYER_X_KEY integer representing player X in the board
+     * @param pool the pool scanning large boards
+     * @return the verification
+     */
+    public static BoardVerifier verify(int[][] board, int EMPTY_TILE_KEY, int PLAYER_O_KEY, int PLAYER_X_KEY,
+                                       ForkJoinPool pool) {
+
+        // if the keys are not -1, 0 and 1 in some order...
+        if (EMPTY_TILE_KEY + PLAYER_O_KEY + PLAYER_X_KEY != 0 || PLAYER_O_KEY == PLAYER_X_KEY
+            || Math.abs(EMPTY_TILE_KEY) > 1 || Math.abs(PLAYER_O_KEY) > 1 || Math.abs(PLAYER_X_KEY) > 1) {
+            // throws an error
+            throw new IllegalArgumentException("Key combination is invalid");
+        }
+
+        // if the board is not a rectangle...
+        if (board.length == 0 || board[0].length == 0) {
+            throw new IllegalArgumentException("Board must have at least one tile");
+        }
+        for (int[] row : board) {
+            if (row.length != board[0].length) {
+                throw new IllegalArgumentException("Every row of the board must have the same length");
+            }
+        }
+
+        return new BoardVerifier(board, EMPTY_TILE_KEY, PLAYER_O_KEY, PLAYER_X_KEY, pool);
+    }
+
+    /**
+     * Determines whether the board could have been reached by playing : every tile holds a key,
+     * and player X has as many pawns as player O or one more
+     * @return whether the board is valid
+     */
+    public boolean isValid() {
+        final long DIFFERENCE = getPlayerXCount() - getPlayerOCount();
+        return getInvalidRowCount() == 0 && (DIFFERENCE == 0 || DIFFERENCE == 1);
+    }
+
+    /**
+     * Gets the number of rows holding a tile which is none of the keys
+     * @return the number of invalid rows
+     */
+    public int getInvalidRowCount() {
+        int count = 0;
+        for (int y = 0; y < BOARD_HEIGHT; y++) {
+            if (ROW_MINIMUMS[y] < -1 || ROW_MAXIMUMS[y] > 1) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Gets the number of player X's pawns
+     * @return the number of pawns
+     */
+    public long getPlayerXCount() {
+        return countOf(PLAYER_X_KEY);
+    }
+
+    /**
+     * Gets the number of player O's pawns
+     * @return the number of pawns
+     */
+    public long getPlayerOCount() {
+        return countOf(PLAYER_O_KEY);
+    }
+
+    /**
+     * Gets the number of empty tiles
+     * @return the number of empty tiles
+     */
+    public long getEmptyCount() {
+        return countOf(EMPTY_TILE_KEY);
+    }
+
+    /**
+     * Gets the number of rows and columns entirely filled by a player's pawns
+     * @param player the key of the player
+     * @return the number of full lines
+     */
+    public int countFullLines(int player) {
+        int count = 0;
+        for (int y = 0; y < BOARD_HEIGHT; y++) {
+            if (lineCount(ROW_SUMS[y], ROW_SQUARES[y], BOARD_WIDTH, player) == BOARD_WIDTH) {
+                count++;
+            }
+        }
+        for (int x = 0; x < BOARD_WIDTH; x++) {
+            if (lineCount(COLUMN_SUMS[x], COLUMN_SQUARES[x], BOARD_HEIGHT, player) == BOARD_HEIGHT) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * The players' score along the rows, as {@link TickTackToe#rowScore(boolean)} computes it
+     * @param considerEmpty whether rows with an empty tile score the empty tile key
+     * @return the sum of the pawns of each row
+     */
+    public int[] rowScores(boolean considerEmpty) {
+        return scores(ROW_SUMS, ROW_SQUARES, BOARD_WIDTH, considerEmpty);
+    }
+
+    /**
+     * The players' score along the columns, as {@link TickTackToe#columnScore(boolean)} computes it
+     * @param considerEmpty whether columns with an empty tile score the empty tile key
+     * @return the sum of the pawns of each column
+     */
+    public int[] columnScores(boolean considerEmpty) {
+        return scores(COLUMN_SUMS, COLUMN_SQUARES, BOARD_HEIGHT, considerEmpty);
+    }
+
+    /**
+     * Computes the score of every line from its reductions
+     * @param sums the sum of the tiles of each line
+     * @param squares the sum of the squares of the tiles of each line
+     * @param length the number of tiles of each line
+     * @param considerEmpty whether lines with an empty tile score the empty tile key
+     * @return the sum of the pawns of each line
+     */
+    private int[] scores(int[] sums, int[] squares, int length, boolean considerEmpty) {
+        final int[] SCORES = new int[sums.length];
+        for (int i = 0; i < sums.length; i++) {
+            // empty tiles add nothing to the score
+            final int EMPTY = lineCount(sums[i], squares[i], length, EMPTY_TILE_KEY);
+            SCORES[i] = considerEmpty && EMPTY > 0 ? EMPTY_TILE_KEY : sums[i] - EMPTY * EMPTY_TILE_KEY;
+        }
+        return SCORES;
+    }
+
+    /**
+     * Counts the tiles of every row holding a key
+     * @param key the key to count
+     * @return the number of tiles
+     */
+    private long countOf(int key) {
+        long count = 0;
+        for (int y = 0; y < BOARD_HEIGHT; y++) {
+            count += lineCount(ROW_SUMS[y], ROW_SQUARES[y], BOARD_WIDTH, key);
+        }
+        return count;
+    }
+
+    /**
+     * Counts the tiles of a line holding a key, from the line's reductions
+     * <br>
+     * With tiles of -1, 0 and 1 : the sum is ones - minus ones, the sum of squares is ones + minus ones
+     * @param sum the sum of the tiles
+     * @param squares the sum of the squares of the tiles
+     * @param length the number of tiles
+     * @param key -1, 0 or 1
+     * @return the number of tiles holding the key
+     */
+    private static int lineCount(int sum, int squares, int length, int key) {
+        return key == 0 ? length - squares : key == 1 ? (squares + sum) / 2 : (squares - sum) / 2;
+    }
+
+    /**
+     * Reduces a band of rows, splitting it between workers while it is large
+     */
+    private final class RowScan extends RecursiveAction {
+
+        // tasks are never serialized, the version only silences the serialization lint
+        private static final long serialVersionUID = 1L;
+
+        // the board and the rows to reduce
+        private final int[][] BOARD;
+        private final int FIRST;
+        private final int LAST;
+
+        /**
+         * Creates the reduction of a band of rows
+         * @param board the tiles
+         * @param first the first row of the band
+         * @param last the row after the band
+         */
+        private RowScan(int[][] board, int first, int last) {
+            this.BOARD = board;
+            this.FIRST = first;
+            this.LAST = last;
+        }
+
+        @Override
+        protected void compute() {
+
+            // splits large bands in two
+            if ((long) (LAST - FIRST) * BOARD_WIDTH > SPLIT_TILES && LAST - FIRST > 1) {
+                final int MIDDLE = FIRST + LAST >>> 1;
+                invokeAll(new RowScan(BOARD, FIRST, MIDDLE), new RowScan(BOARD, MIDDLE, LAST));
+                return;
+            }
+
+            for (int y = FIRST; y < LAST; y++) {
+                final int[] ROW = BOARD[y];
+                int sum = 0;
+                int squares = 0;
+                int minimum = Integer.MAX_VALUE;
+                int maximum = Integer.MIN_VALUE;
+
+                // straight reductions, which the JIT turns into SIMD instructions
+                for (int x = 0; x < ROW.length; x++) {
+                    final int TILE = ROW[x];
+                    sum += TILE;
+                    squares += TILE * TILE;
+                    minimum = Math.min(minimum, TILE);
+                    maximum = Math.max(maximum, TILE);
+                }
+
+                ROW_SUMS[y] = sum;
+                ROW_SQUARES[y] = squares;
+                ROW_MINIMUMS[y] = minimum;
+                ROW_MAXIMUMS[y] = maximum;
+            }
+        }
+    }
+
+    /**
+     * Reduces a range of column strips, splitting it between workers while it is large
+     */
+    private final class ColumnScan extends RecursiveAction {
+
+        // never serialized either
+        private static final long serialVersionUID = 1L;
+
+        // the board and the strips to reduce
+        private final int[][] BOARD;
+        private final int FIRST;
+        private final int LAST;
+
+        /**
+         * Creates the reduction of a range of column strips
+         * @param board the tiles
+         * @param first the first strip of the range
+         * @param last the strip after the range
+         */
+        private ColumnScan(int[][] board, int first, int last) {
+            this.BOARD = board;
+            this.FIRST = first;
+            this.LAST = last;
+        }
+
+        @Override
+        protected void compute() {
+
+            // splits large ranges in two
+            if ((long) (LAST - FIRST) * STRIP_COLUMNS * BOARD_HEIGHT > SPLIT_TILES && LAST - FIRST > 1) {
+                final int MIDDLE = FIRST + LAST >>> 1;
+                invokeAll(new ColumnScan(BOARD, FIRST, MIDDLE), new ColumnScan(BOARD, MIDDLE, LAST));
+                return;
+            }
+
+            for (int strip = FIRST; strip < LAST; strip++) {
+                final int START = strip * STRIP_COLUMNS;
+                final int END = Math.min(START + STRIP_COLUMNS, BOARD_WIDTH);
+
+                // walks down the strip row by row, so that every read is sequential
+                for (int[] row : BOARD) {
+                    for (int x = START; x < END; x++) {
+                        final int TILE = row[x];
+                        COLUMN_SUMS[x] += TILE;
+                        COLUMN_SQUARES[x] += TILE * TILE;
+                    }
+                }
+            }
+        }
+    }
+}
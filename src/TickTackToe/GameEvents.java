@@ -0,0 +1,196 @@
+package TickTackToe;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The Flight Recorder events of the games and engines, and the hooks which emit them
+ * <br>
+ * Events are only filled in and committed while a recording enables them : otherwise the event objects never
+ * escape their method and cost next to nothing. Each hook also feeds {@link GameMetrics} when it is enabled
+ */
+final class GameEvents {
+
+    /**
+     * A pawn placed through {@link TickTackToe#play(int, int)}
+     */
+    @Name("TickTackToe.Move")
+    @Label("Move")
+    @Category("TickTackToe")
+    @Description("A pawn placed on the board")
+    static final class MoveEvent extends Event {
+        @Label("X")
+        int x;
+        @Label("Y")
+        int y;
+        @Label("Player")
+        String player;
+        @Label("Turn")
+        int turn;
+    }
+
+    /**
+     * A call to {@link TickTackToe#winingPlayer()}
+     */
+    @Name("TickTackToe.WinCheck")
+    @Label("Win Check")
+    @Category("TickTackToe")
+    @Description("A look at whether a player has won")
+    static final class WinCheckEvent extends Event {
+        @Label("Winner")
+        String winner;
+        @Label("Turn")
+        int turn;
+    }
+
+    /**
+     * A search for the best move
+     */
+    @Name("TickTackToe.Search")
+    @Label("Search")
+    @Category("TickTackToe")
+    @Description("A search engine looking for a move")
+    static final class SearchEvent extends Event {
+        @Label("Engine")
+        String engine;
+        @Label("Move")
+        int move;
+        @Label("Score")
+        int score;
+        @Label("Depth")
+        int depth;
+        @Label("Nodes")
+        long nodes;
+    }
+
+    /**
+     * A game ending with a win or a full board
+     */
+    @Name("TickTackToe.GameCompleted")
+    @Label("Game Completed")
+    @Category("TickTackToe")
+    @Description("A game ending with a win or a full board")
+    static final class GameCompletedEvent extends Event {
+        @Label("Winner")
+        String winner;
+        @Label("Turns")
+        int turns;
+        @Label("Width")
+        int width;
+        @Label("Height")
+        int height;
+    }
+
+    /**
+     * Only hooks, never instantiated
+     */
+    private GameEvents() {
+    }
+
+    /**
+     * Records a pawn placed on the board, and the end of the game if the pawn ended it
+     * @param event the event begun before the pawn was placed
+     * @param game the game played
+     * @param x the x-coordinates of the pawn
+     * @param y the y-coordinates of the pawn
+     * @param previousWinner the winner of the game before the pawn was placed
+     */
+    static void moved(MoveEvent event, TickTackToe game, int x, int y, int previousWinner) {
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.x = x;
+            event.y = y;
+            event.player = game.getTile(y, x) == game.PLAYER_X_KEY ? "X" : "O";
+            event.turn = game.turn - 1;
+            event.commit();
+        }
+        if (GameMetrics.isEnabled()) {
+            GameMetrics.MOVES.increment();
+        }
+
+        // the game ends on a win or once every tile holds a pawn, moves played after a win do not end it again
+        if (previousWinner == game.EMPTY_TILE_KEY
+            && (game.winner() != game.EMPTY_TILE_KEY || game.turn == game.BOARD_WIDTH * game.BOARD_HEIGHT)) {
+            completed(game);
+        }
+    }
+
+    /**
+     * Records a look at the winner of a game
+     * @param game the game looked at
+     */
+    static void checkedWin(TickTackToe game) {
+
+        final WinCheckEvent EVENT = new WinCheckEvent();
+        if (EVENT.shouldCommit()) {
+            EVENT.winner = playerName(game, game.winner());
+            EVENT.turn = game.turn;
+            EVENT.commit();
+        }
+        if (GameMetrics.isEnabled()) {
+            GameMetrics.WIN_CHECKS.increment();
+        }
+    }
+
+    /**
+     * Records a finished search
+     * @param event the event begun before the search
+     * @param engine the name of the engine
+     * @param result the outcome of the search
+     * @param tableHits the number of transposition table probes which found their position
+     * @param tableMisses the number of transposition table probes which did not
+     */
+    static void searched(SearchEvent event, String engine, SearchResult result, long tableHits, long tableMisses) {
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.engine = engine;
+            event.move = result.getMove();
+            event.score = result.getScore();
+            event.depth = result.getDepth();
+            event.nodes = result.getNodes();
+            event.commit();
+        }
+        if (GameMetrics.isEnabled()) {
+            GameMetrics.SEARCHES.increment();
+            GameMetrics.SEARCH_NODES.add(result.getNodes());
+            GameMetrics.SEARCH_LATENCY.record(result.getElapsedNanos());
+            GameMetrics.TABLE_HITS.add(tableHits);
+            GameMetrics.TABLE_MISSES.add(tableMisses);
+        }
+    }
+
+    /**
+     * Records the end of a game
+     * @param game the finished game
+     */
+    private static void completed(TickTackToe game) {
+
+        final GameCompletedEvent EVENT = new GameCompletedEvent();
+        if (EVENT.shouldCommit()) {
+            EVENT.winner = playerName(game, game.winner());
+            EVENT.turns = game.turn;
+            EVENT.width = game.BOARD_WIDTH;
+            EVENT.height = game.BOARD_HEIGHT;
+            EVENT.commit();
+        }
+        if (GameMetrics.isEnabled()) {
+            GameMetrics.GAMES.increment();
+            GameMetrics.GAME_DURATION.record(System.nanoTime() - game.getStartNanos());
+        }
+    }
+
+    /**
+     * Names a player
+     * @param game the game the player plays in
+     * @param player the key of the player
+     * @return "X", "O", or "none" for the empty tile key
+     */
+    private static String playerName(TickTackToe game, int player) {
+        return player == game.PLAYER_X_KEY ? "X" : player == game.PLAYER_O_KEY ? "O" : "none";
+    }
+}
@@ -0,0 +1,350 @@
+package TickTackToe;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Plays random games against a {@link GameServer} from several connections at once and measures how fast it answers
+ * <br>
+ * Each connection starts a game, sends its moves in pipelined batches, then retires the game, and records the time
+ * every request waited for its answer
+ */
+public class GameLoadClient {
+
+    // the port of the server
+    private final int PORT;
+
+    // the number of connections playing at once
+    private final int CONNECTIONS;
+
+    // the number of games each connection plays
+    private final int GAMES;
+
+    // the size of the boards played on
+    private final int BOARD_DIMENSIONS;
+
+    // the number of moves sent before waiting for their answers
+    private final int PIPELINE;
+
+    // the results of the last run
+    private long moves;
+    private long requests;
+    private long elapsedNanos;
+    private long[] latencies = new long[0];
+
+    /**
+     * Creates a load generator
+     * @param port the port of the server, on the loopback interface
+     * @param connections the number of connections playing at once
+     * @param games the number of games each connection plays
+     * @param dimension the size of the boards played on
+     * @param pipeline the number of moves sent before waiting for their answers
+     */
+    public GameLoadClient(int port, int connections, int games, int dimension, int pipeline) {
+
+        // if the load is empty...
+        if (connections < 1 || games < 1 || pipeline < 1) {
+            // throws an error
+            throw new IllegalArgumentException("Connections, games and pipeline depth must be at least 1");
+        }
+
+        this.PORT = port;
+        this.CONNECTIONS = connections;
+        this.GAMES = games;
+        this.BOARD_DIMENSIONS = dimension;
+        this.PIPELINE = pipeline;
+    }
+
+    /**
+     * Plays every game and records the measures
+     * @throws IOException if a connection failed or the server answered something unexpected
+     */
+    public void run() throws IOException {
+
+        final ExecutorService EXECUTOR = Executors.newFixedThreadPool(CONNECTIONS);
+        try {
+            // every connection plays on its own thread
+            final long START = System.nanoTime();
+            final Future<?>[] RUNS = new Future<?>[CONNECTIONS];
+            final Player[] PLAYERS = new Player[CONNECTIONS];
+            for (int i = 0; i < CONNECTIONS; i++) {
+                PLAYERS[i] = new Player(i);
+                RUNS[i] = EXECUTOR.submit(PLAYERS[i]);
+            }
+            for (Future<?> run : RUNS) {
+                run.get();
+            }
+            elapsedNanos = System.nanoTime() - START;
+
+            // merges the measures of every connection
+            moves = 0;
+            requests = 0;
+            for (Player player : PLAYERS) {
+                moves += player.acceptedMoves;
+                requests += player.latencyCount;
+            }
+            latencies = new long[(int) requests];
+            int copied = 0;
+            for (Player player : PLAYERS) {
+                System.arraycopy(player.waits, 0, latencies, copied, player.latencyCount);
+                copied += player.latencyCount;
+            }
+            Arrays.sort(latencies);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Load run interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Load run failed", e.getCause());
+        } finally {
+            EXECUTOR.shutdownNow();
+        }
+    }
+
+    /**
+     * Gets the number of moves the server accepted during the last run
+     * @return the number of moves
+     */
+    public long getMoves() {
+        return moves;
+    }
+
+    /**
+     * Gets the number of requests answered during the last run
+     * @return the number of requests
+     */
+    public long getRequests() {
+        return requests;
+    }
+
+    /**
+     * Gets the duration of the last run
+     * @return the elapsed time, in nanoseconds
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Gets the number of moves the server accepted per second during the last run
+     * @return the throughput in moves per second
+     */
+    public double getMovesPerSecond() {
+        return elapsedNanos == 0 ? 0 : moves * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * Gets a percentile of the time requests waited for their answer during the last run
+     * @param percentile the percentile, between 0 and 100
+     * @return the latency, in nanoseconds
+     */
+    public long getLatencyPercentile(double percentile) {
+        if (latencies.length == 0) {
+            return 0;
+        }
+        final int INDEX = (int) Math.ceil(percentile / 100 * latencies.length) - 1;
+        return latencies[Math.max(0, Math.min(INDEX, latencies.length - 1))];
+    }
+
+    /**
+     * Summarises the last run
+     * @return the summary
+     */
+    @Override
+    public String toString() {
+        return String.format("%s moves, %s requests in %.0f ms : %.0f moves/s, latency p50 %.1f us, p99 %.1f us, max %.1f us",
+                             moves, requests, elapsedNanos / 1e6, getMovesPerSecond(),
+                             getLatencyPercentile(50) / 1e3, getLatencyPercentile(99) / 1e3,
+                             getLatencyPercentile(100) / 1e3);
+    }
+
+    /**
+     * One connection playing its share of the games
+     */
+    private final class Player implements Runnable {
+
+        // the random source of the moves
+        private final SplittableRandom RANDOM;
+
+        // the request bytes waiting to be sent and the answer bytes read
+        private final ByteBuffer OUTPUT = ByteBuffer.allocate(64 * (PIPELINE + 1));
+        private final ByteBuffer INPUT = ByteBuffer.allocate(4096);
+
+        // the measures of this connection
+        private long acceptedMoves;
+        private long[] waits = new long[1024];
+        private int latencyCount;
+
+        // the number of the last answer read
+        private long answerNumber;
+
+        /**
+         * Creates a connection
+         * @param index the index of the connection, seeding its moves
+         */
+        private Player(int index) {
+            this.RANDOM = new SplittableRandom(index);
+        }
+
+        @Override
+        public void run() {
+            try (SocketChannel channel = SocketChannel.open(
+                     new InetSocketAddress(InetAddress.getLoopbackAddress(), PORT))) {
+
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                INPUT.flip();
+
+                final int TILES = BOARD_DIMENSIONS * BOARD_DIMENSIONS;
+                final int[] ORDER = new int[TILES];
+                for (int game = 0; game < GAMES; game++) {
+
+                    // starts a game
+                    appendRequest("NEW ", BOARD_DIMENSIONS, -1, -1);
+                    if (exchange(channel, 1) == 0) {
+                        throw new IOException(String.format("Server refused a %sx%s board", BOARD_DIMENSIONS,
+                                                            BOARD_DIMENSIONS));
+                    }
+                    final long ID = answerNumber;
+
+                    // plays every tile in a random order, in batches, until the server refuses a move
+                    for (int i = 0; i < TILES; i++) {
+                        final int SWAP = RANDOM.nextInt(i + 1);
+                        ORDER[i] = ORDER[SWAP];
+                        ORDER[SWAP] = i;
+                    }
+                    boolean over = false;
+                    for (int sent = 0; sent < TILES && !over; ) {
+                        final int BATCH = Math.min(PIPELINE, TILES - sent);
+                        for (int i = 0; i < BATCH; i++, sent++) {
+                            appendRequest("PLAY ", ID, ORDER[sent] % BOARD_DIMENSIONS, ORDER[sent] / BOARD_DIMENSIONS);
+                        }
+                        final int ACCEPTED = exchange(channel, BATCH);
+                        acceptedMoves += ACCEPTED;
+                        over = ACCEPTED < BATCH;
+                    }
+
+                    // retires the game
+                    appendRequest("QUIT ", ID, -1, -1);
+                    exchange(channel, 1);
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        /**
+         * Queues a request
+         * @param command the command, followed by a space
+         * @param first the first number of the request
+         * @param second the second number, or -1 if there is none
+         * @param third the third number, or -1 if there is none
+         */
+        private void appendRequest(String command, long first, long second, long third) {
+            for (int i = 0; i < command.length(); i++) {
+                OUTPUT.put((byte) command.charAt(i));
+            }
+            appendNumber(first);
+            if (second >= 0) {
+                OUTPUT.put((byte) ' ');
+                appendNumber(second);
+            }
+            if (third >= 0) {
+                OUTPUT.put((byte) ' ');
+                appendNumber(third);
+            }
+            OUTPUT.put((byte) '\n');
+        }
+
+        /**
+         * Queues a positive number in decimal
+         * @param number the number to queue
+         */
+        private void appendNumber(long number) {
+            long power = 1;
+            while (power <= number / 10) {
+                power *= 10;
+            }
+            for (; power > 0; power /= 10) {
+                OUTPUT.put((byte) ('0' + number / power % 10));
+            }
+        }
+
+        /**
+         * Sends the queued requests and reads their answers
+         * @param channel the connection to the server
+         * @param count the number of queued requests
+         * @return the number of answers starting with "OK"
+         * @throws IOException if the connection failed
+         */
+        private int exchange(SocketChannel channel, int count) throws IOException {
+
+            // every request of the batch leaves at once
+            final long SENT_AT = System.nanoTime();
+            OUTPUT.flip();
+            while (OUTPUT.hasRemaining()) {
+                channel.write(OUTPUT);
+            }
+            OUTPUT.clear();
+
+            int accepted = 0;
+            for (int answer = 0; answer < count; answer++) {
+
+                // reads until a whole line is there
+                int end = indexOfNewLine();
+                while (end < 0) {
+                    INPUT.compact();
+                    if (channel.read(INPUT) < 0) {
+                        throw new IOException("Server closed the connection");
+                    }
+                    INPUT.flip();
+                    end = indexOfNewLine();
+                }
+                recordLatency(System.nanoTime() - SENT_AT);
+
+                // "OK" and an optional number, or "ERR" and a reason
+                if (INPUT.get(INPUT.position()) == 'O') {
+                    accepted++;
+                    answerNumber = 0;
+                    for (int i = INPUT.position() + 3; i < end; i++) {
+                        answerNumber = 10 * answerNumber + INPUT.get(i) - '0';
+                    }
+                }
+                INPUT.position(end + 1);
+            }
+            return accepted;
+        }
+
+        /**
+         * Finds the end of the next answer
+         * @return the index of the '\n', or -1 if the answer is not complete
+         */
+        private int indexOfNewLine() {
+            for (int i = INPUT.position(); i < INPUT.limit(); i++) {
+                if (INPUT.get(i) == '\n') {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Records how long a request waited for its answer
+         * @param nanos the latency, in nanoseconds
+         */
+        private void recordLatency(long nanos) {
+            if (latencyCount == waits.length) {
+                waits = Arrays.copyOf(waits, 2 * waits.length);
+            }
+            waits[latencyCount++] = nanos;
+        }
+    }
+}
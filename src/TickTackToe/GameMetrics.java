@@ -0,0 +1,160 @@
+package TickTackToe;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and latency histograms of every game and engine of the process
+ * <br>
+ * Metrics are off by default. While off, the hot paths only read a volatile flag ; while on, they add to striped
+ * counters and lock-free histograms, which are cheap enough to leave on under load.
+ * The metrics are dumped as plain text lines, one metric per line
+ */
+public final class GameMetrics {
+
+    // whether the hot paths record anything
+    private static volatile boolean enabled = false;
+
+    // the time the metrics were last reset
+    private static volatile long sinceNanos = System.nanoTime();
+
+    // pawns placed and looks at the winner through the public game methods
+    static final LongAdder MOVES = new LongAdder();
+    static final LongAdder WIN_CHECKS = new LongAdder();
+
+    // finished games and how long they lasted
+    static final LongAdder GAMES = new LongAdder();
+    static final LatencyHistogram GAME_DURATION = new LatencyHistogram();
+
+    // searches, the positions they visited and how long they took
+    static final LongAdder SEARCHES = new LongAdder();
+    static final LongAdder SEARCH_NODES = new LongAdder();
+    static final LatencyHistogram SEARCH_LATENCY = new LatencyHistogram();
+
+    // transposition table probes during searches
+    static final LongAdder TABLE_HITS = new LongAdder();
+    static final LongAdder TABLE_MISSES = new LongAdder();
+
+    /**
+     * Only static metrics, never instantiated
+     */
+    private GameMetrics() {
+    }
+
+    /**
+     * Starts recording metrics
+     */
+    public static void enable() {
+        enabled = true;
+    }
+
+    /**
+     * Stops recording metrics, keeping the ones recorded so far
+     */
+    public static void disable() {
+        enabled = false;
+    }
+
+    /**
+     * Determines whether metrics are being recorded
+     * @return whether metrics are enabled
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Forgets every metric recorded so far
+     */
+    public static void reset() {
+        MOVES.reset();
+        WIN_CHECKS.reset();
+        GAMES.reset();
+        GAME_DURATION.reset();
+        SEARCHES.reset();
+        SEARCH_NODES.reset();
+        SEARCH_LATENCY.reset();
+        TABLE_HITS.reset();
+        TABLE_MISSES.reset();
+        sinceNanos = System.nanoTime();
+    }
+
+    /**
+     * Writes every metric, one "name value" pair per line
+     * @param out where to write the metrics
+     * @throws IOException if the metrics could not be written
+     */
+    public static void dump(Appendable out) throws IOException {
+
+        final double SECONDS = Math.max(System.nanoTime() - sinceNanos, 1) / 1e9;
+        final long HITS = TABLE_HITS.sum();
+        final long PROBES = HITS + TABLE_MISSES.sum();
+        final long SEARCH_NANOS = SEARCH_LATENCY.total();
+
+        line(out, "uptime_seconds", SECONDS);
+        line(out, "moves_total", MOVES.sum());
+        line(out, "moves_per_second", MOVES.sum() / SECONDS);
+        line(out, "win_checks_total", WIN_CHECKS.sum());
+        line(out, "games_total", GAMES.sum());
+        line(out, "games_per_second", GAMES.sum() / SECONDS);
+        quantiles(out, "game_duration_ns", GAME_DURATION);
+        line(out, "searches_total", SEARCHES.sum());
+        line(out, "search_nodes_total", SEARCH_NODES.sum());
+        line(out, "search_nodes_per_second", SEARCH_NANOS == 0 ? 0 : SEARCH_NODES.sum() * 1e9 / SEARCH_NANOS);
+        quantiles(out, "search_latency_ns", SEARCH_LATENCY);
+        line(out, "table_hit_rate", PROBES == 0 ? 0 : (double) HITS / PROBES);
+    }
+
+    /**
+     * Writes every metric, one "name value" pair per line
+     * @return the metrics
+     */
+    public static String dump() {
+        final StringBuilder OUT = new StringBuilder();
+        try {
+            dump(OUT);
+        } catch (IOException e) {
+            // a string builder never fails
+            throw new UncheckedIOException(e);
+        }
+        return OUT.toString();
+    }
+
+    /**
+     * Writes the count and quantiles of a histogram
+     * @param out where to write the metrics
+     * @param name the name of the histogram
+     * @param histogram the histogram
+     * @throws IOException if the metrics could not be written
+     */
+    private static void quantiles(Appendable out, String name, LatencyHistogram histogram) throws IOException {
+        line(out, name + "_count", histogram.count());
+        line(out, name + "_p50", histogram.percentile(50));
+        line(out, name + "_p99", histogram.percentile(99));
+        line(out, name + "_max", histogram.percentile(100));
+    }
+
+    /**
+     * Writes a whole metric
+     * @param out where to write the metric
+     * @param name the name of the metric
+     * @param value the value of the metric
+     * @throws IOException if the metric could not be written
+     */
+    private static void line(Appendable out, String name, long value) throws IOException {
+        out.append(name).append(' ').append(Long.toString(value)).append('\n');
+    }
+
+    /**
+     * Writes a decimal metric
+     * @param out where to write the metric
+     * @param name the name of the metric
+     * @param value the value of the metric
+     * @throws IOException if the metric could not be written
+     */
+    private static void line(Appendable out, String name, double value) throws IOException {
+        out.append(name).append(' ').append(String.format(Locale.ROOT, "%.3f", value)).append('\n');
+    }
+}
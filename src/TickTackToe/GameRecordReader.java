@@ -0,0 +1,334 @@
+package TickTackToe;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Streams the records of an archive written by {@link GameRecordWriter}
+ * <br>
+ * The file is mapped into memory one large window at a time, so archives of any size can be scanned
+ * without reading them into the heap. The reader holds a single record at a time in reusable arrays :
+ * {@link #next()} moves on to the following record and allocates nothing. A reader is not thread-safe
+ */
+public class GameRecordReader implements Closeable {
+
+    // the largest part of the file mapped at once
+    private static final long WINDOW_BYTES = 1L << 30;
+
+    // the rules and keys of the archived games
+    private final int BOARD_WIDTH;
+    private final int BOARD_HEIGHT;
+    private final int WIN_LENGTH;
+    private final int EMPTY_TILE_KEY;
+    private final int PLAYER_O_KEY;
+    private final int PLAYER_X_KEY;
+
+    // the file, its size and the largest record it can hold
+    private final FileChannel CHANNEL;
+    private final long SIZE;
+    private final int MAX_RECORD_BYTES;
+
+    // the mapped part of the file and where it starts
+    private MappedByteBuffer window;
+    private long windowStart;
+
+    // the current record : its kind, winner and turn, with either its moves or its tiles
+    private byte kind = 0;
+    private int winner;
+    private int turn;
+    private final int[] MOVES;
+    private final int[] TILES;
+
+    // the number of records read
+    private long records = 0;
+
+    /**
+     * Creates a reader over an open file
+     * @param channel the file
+     * @param header the header of the file, past the magic and version
+     * @throws IOException if the header is invalid or the file could not be mapped
+     */
+    private GameRecordReader(FileChannel channel, ByteBuffer header) throws IOException {
+        this.BOARD_WIDTH = header.getInt();
+        this.BOARD_HEIGHT = header.getInt();
+        this.WIN_LENGTH = header.getInt();
+        this.EMPTY_TILE_KEY = header.getInt();
+        this.PLAYER_O_KEY = header.getInt();
+        this.PLAYER_X_KEY = header.getInt();
+
+        // if the board could not have been archived...
+        if (!GameRecordWriter.isArchivable(BOARD_WIDTH, BOARD_HEIGHT)) {
+            // throws an error
+            throw new IOException("Archive has invalid board dimensions");
+        }
+
+        this.CHANNEL = channel;
+        this.SIZE = channel.size();
+        this.MAX_RECORD_BYTES = GameRecordWriter.maxRecordBytes(BOARD_WIDTH * BOARD_HEIGHT);
+        this.MOVES = new int[BOARD_WIDTH * BOARD_HEIGHT];
+        this.TILES = new int[BOARD_WIDTH * BOARD_HEIGHT];
+        map(GameRecordWriter.HEADER_BYTES);
+    }
+
+    /**
+     * Opens an archive
+     * @param file the file written by a {@link GameRecordWriter}
+     * @return the reader of the archive, before its first record
+     * @throws IOException if the file could not be read or is not an archive
+     */
+    public static GameRecordReader open(Path file) throws IOException {
+        final FileChannel CHANNEL = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            // checks the header
+            final ByteBuffer HEADER = ByteBuffer.allocate(GameRecordWriter.HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            while (HEADER.hasRemaining()) {
+                // stops short if the file ends within the header
+                if (CHANNEL.read(HEADER, HEADER.position()) < 0) {
+                    break;
+                }
+            }
+            HEADER.flip();
+            if (HEADER.remaining() < GameRecordWriter.HEADER_BYTES || HEADER.getInt() != GameRecordWriter.MAGIC
+                || HEADER.getInt() != GameRecordWriter.VERSION) {
+                throw new IOException(String.format("%s is not a game archive", file));
+            }
+            return new GameRecordReader(CHANNEL, HEADER);
+        } catch (IOException | RuntimeException e) {
+            CHANNEL.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Creates an empty game with the rules and keys of the archived games
+     * @return the game
+     */
+    public TickTackToe newGame() {
+        return new TickTackToe(BOARD_WIDTH, BOARD_HEIGHT, WIN_LENGTH, EMPTY_TILE_KEY, PLAYER_O_KEY, PLAYER_X_KEY);
+    }
+
+    /**
+     * Moves on to the next record
+     * @return whether there was a next record, false once the end of the file is reached
+     * @throws IOException if the record is corrupt or cut short
+     */
+    public boolean next() throws IOException {
+
+        // if every record has been read...
+        if (windowStart + window.position() >= SIZE) {
+            kind = 0;
+            return false;
+        }
+
+        // maps the next window before a record can run past the end of this one
+        if (window.remaining() < MAX_RECORD_BYTES && windowStart + window.limit() < SIZE) {
+            map(windowStart + window.position());
+        }
+
+        try {
+            kind = window.get();
+            winner = key(window.get());
+            turn = getVarint();
+
+            // if the record holds more moves than the board has tiles...
+            if (turn < 0 || turn > MOVES.length) {
+                throw new IOException(String.format("Record %s is corrupt", records));
+            }
+
+            if (kind == GameRecordWriter.MOVES_RECORD) {
+                for (int i = 0; i < turn; i++) {
+                    MOVES[i] = getVarint();
+                    if (MOVES[i] < 0 || MOVES[i] >= MOVES.length) {
+                        throw new IOException(String.format("Record %s is corrupt", records));
+                    }
+                }
+            } else if (kind == GameRecordWriter.SNAPSHOT_RECORD) {
+                // unpacks 4 tiles per byte, the first tile in the lowest bits
+                int packed = 0;
+                for (int tile = 0; tile < TILES.length; tile++) {
+                    if ((tile & 3) == 0) {
+                        packed = window.get();
+                    }
+                    TILES[tile] = key(packed >>> 2 * (tile & 3) & 3);
+                }
+            } else {
+                throw new IOException(String.format("Record %s has unknown kind %s", records, kind));
+            }
+        } catch (BufferUnderflowException e) {
+            throw new IOException(String.format("Record %s is cut short", records));
+        }
+
+        records++;
+        return true;
+    }
+
+    /**
+     * Determines whether the current record is a snapshot of the tiles rather than a list of moves
+     * @return whether the record is a snapshot
+     */
+    public boolean isSnapshot() {
+        return kind == GameRecordWriter.SNAPSHOT_RECORD;
+    }
+
+    /**
+     * Gets the winner of the current record
+     * @return the key of the winner, or the empty tile key if nobody won
+     */
+    public int getWinner() {
+        return winner;
+    }
+
+    /**
+     * Gets the turn the game of the current record reached, which is its number of moves
+     * @return the turn of the record
+     */
+    public int getTurn() {
+        return turn;
+    }
+
+    /**
+     * Gets a move of the current record
+     * @param turn the turn the move was played on, below {@link #getTurn()}
+     * @return the move (see {@link Board#toMove(int, int)})
+     */
+    public int getMove(int turn) {
+
+        // if the record does not list its moves...
+        if (kind != GameRecordWriter.MOVES_RECORD) {
+            // throws an error
+            throw new IllegalStateException("Current record is not a list of moves");
+        }
+        return MOVES[turn];
+    }
+
+    /**
+     * Gets a tile of the current record
+     * @param y the y-coordinates of the tile
+     * @param x the x-coordinates of the tile
+     * @return the key of the pawn on the tile
+     */
+    public int getTile(int y, int x) {
+
+        // if the record does not hold the tiles...
+        if (kind != GameRecordWriter.SNAPSHOT_RECORD) {
+            // throws an error
+            throw new IllegalStateException("Current record is not a snapshot");
+        }
+        return TILES[y * BOARD_WIDTH + x];
+    }
+
+    /**
+     * Plays the moves of the current record on a game, which is reset first
+     * @param game a game with the rules and keys of the archive
+     */
+    public void replay(TickTackToe game) {
+
+        // if the game is not played with the archive's rules...
+        if (game.BOARD_WIDTH != BOARD_WIDTH || game.BOARD_HEIGHT != BOARD_HEIGHT || game.WIN_LENGTH != WIN_LENGTH
+            || game.EMPTY_TILE_KEY != EMPTY_TILE_KEY || game.PLAYER_O_KEY != PLAYER_O_KEY
+            || game.PLAYER_X_KEY != PLAYER_X_KEY) {
+            // throws an error
+            throw new IllegalArgumentException(String.format("Archive holds %sx%s games with a win length of %s",
+                                                             BOARD_WIDTH, BOARD_HEIGHT, WIN_LENGTH));
+        }
+
+        game.reset();
+        for (int i = 0; i < turn; i++) {
+            game.make(getMove(i));
+        }
+    }
+
+    /**
+     * Gets the number of records read
+     * @return the number of records
+     */
+    public long getRecords() {
+        return records;
+    }
+
+    /**
+     * Gets the number of columns of the archived boards
+     * @return the board width
+     */
+    public int getBOARD_WIDTH() {
+        return BOARD_WIDTH;
+    }
+
+    /**
+     * Gets the number of rows of the archived boards
+     * @return the board height
+     */
+    public int getBOARD_HEIGHT() {
+        return BOARD_HEIGHT;
+    }
+
+    /**
+     * Gets the number of aligned pawns needed to win the archived games
+     * @return the win length
+     */
+    public int getWIN_LENGTH() {
+        return WIN_LENGTH;
+    }
+
+    /**
+     * Closes the file, the current window staying readable until it is garbage collected
+     * @throws IOException if the file could not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        CHANNEL.close();
+    }
+
+    /**
+     * Maps the window of the file starting at a given position
+     * @param start the position of the window in the file
+     * @throws IOException if the file could not be mapped
+     */
+    private void map(long start) throws IOException {
+        windowStart = start;
+        window = CHANNEL.map(FileChannel.MapMode.READ_ONLY, start, Math.min(WINDOW_BYTES, SIZE - start));
+    }
+
+    /**
+     * Converts an owner of the archive into the key of a tile or winner
+     * @param owner the owner
+     * @return the key of the owner
+     * @throws IOException if the owner is unknown
+     */
+    private int key(int owner) throws IOException {
+        switch (owner) {
+            case GameRecordWriter.NOBODY:
+                return EMPTY_TILE_KEY;
+            case GameRecordWriter.PLAYER_X:
+                return PLAYER_X_KEY;
+            case GameRecordWriter.PLAYER_O:
+                return PLAYER_O_KEY;
+            default:
+                throw new IOException(String.format("Record %s is corrupt", records));
+        }
+    }
+
+    /**
+     * Reads a non-negative int written 7 bits at a time, lowest bits first
+     * @return the value read
+     * @throws IOException if the varint is too long
+     */
+    private int getVarint() throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 7 * GameRecordWriter.MAX_VARINT_BYTES; shift += 7) {
+            final int BYTE = window.get();
+            value |= (BYTE & 0x7F) << shift;
+            if ((BYTE & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException(String.format("Record %s is corrupt", records));
+    }
+}
@@ -0,0 +1,268 @@
+package TickTackToe;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Archives games to a compact binary file, read back by {@link GameRecordReader}
+ * <br>
+ * The file starts with a header giving the rules and keys of its games, followed by any number of records :
+ * <ul>
+ *     <li>moves : a tag byte, the result, the number of moves then every move, each as a varint
+ *     <li>snapshot : a tag byte, the result, the turn as a varint, then every tile on 2 bits, 4 tiles per byte
+ * </ul>
+ * Results and tiles are 0 for nobody, 1 for player X and 2 for player O. Records are gathered in a direct buffer
+ * and written in large blocks, so writing a game allocates nothing. A writer is not thread-safe
+ */
+public class GameRecordWriter implements Closeable {
+
+    // identifies game record files : "TTGR"
+    static final int MAGIC = 0x54544752;
+    static final int VERSION = 1;
+
+    // magic, version, width, height, win length, then the empty tile, player O and player X keys
+    static final int HEADER_BYTES = 8 * Integer.BYTES;
+
+    // the kinds of records
+    static final byte MOVES_RECORD = 1;
+    static final byte SNAPSHOT_RECORD = 2;
+
+    // the owners of tiles and games
+    static final int NOBODY = 0;
+    static final int PLAYER_X = 1;
+    static final int PLAYER_O = 2;
+
+    // the longest a varint of an int can be
+    static final int MAX_VARINT_BYTES = 5;
+
+    // the most tiles an archived board may have, enough for a 1024x1024 board
+    public static final int MAX_TILES = 1 << 20;
+
+    // the default size of the buffer records are gathered in
+    private static final int BUFFER_BYTES = 1 << 16;
+
+    // the rules and keys of the archived games
+    private final int BOARD_WIDTH;
+    private final int BOARD_HEIGHT;
+    private final int WIN_LENGTH;
+    private final int EMPTY_TILE_KEY;
+    private final int PLAYER_O_KEY;
+    private final int PLAYER_X_KEY;
+
+    // the file and the records waiting to be written to it
+    private final FileChannel CHANNEL;
+    private final ByteBuffer BUFFER;
+
+    // the largest record a game can take up
+    private final int MAX_RECORD_BYTES;
+
+    // the number of records written
+    private long records = 0;
+
+    /**
+     * Creates a writer over an open file
+     * @param rules a game with the rules and keys of the archived games
+     * @param channel the file, positioned after the header
+     */
+    private GameRecordWriter(TickTackToe rules, FileChannel channel) {
+        this.BOARD_WIDTH = rules.BOARD_WIDTH;
+        this.BOARD_HEIGHT = rules.BOARD_HEIGHT;
+        this.WIN_LENGTH = rules.WIN_LENGTH;
+        this.EMPTY_TILE_KEY = rules.EMPTY_TILE_KEY;
+        this.PLAYER_O_KEY = rules.PLAYER_O_KEY;
+        this.PLAYER_X_KEY = rules.PLAYER_X_KEY;
+        this.CHANNEL = channel;
+        this.MAX_RECORD_BYTES = maxRecordBytes(BOARD_WIDTH * BOARD_HEIGHT);
+        this.BUFFER = ByteBuffer.allocateDirect(Math.max(BUFFER_BYTES, MAX_RECORD_BYTES));
+    }
+
+    /**
+     * Creates an archive, replacing any existing file
+     * @param file the file to write
+     * @param rules a game with the rules and keys of the archived games
+     * @return the writer of the archive
+     * @throws IOException if the file could not be written
+     */
+    public static GameRecordWriter create(Path file, TickTackToe rules) throws IOException {
+
+        // if the board could not be read back...
+        if (!isArchivable(rules.BOARD_WIDTH, rules.BOARD_HEIGHT)) {
+            // throws an error
+            throw new IllegalArgumentException(String.format("Archived boards may hold at most %s tiles", MAX_TILES));
+        }
+
+        final FileChannel CHANNEL = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                     StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            // writes the header
+            final ByteBuffer HEADER = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            HEADER.putInt(MAGIC).putInt(VERSION).putInt(rules.BOARD_WIDTH).putInt(rules.BOARD_HEIGHT)
+                  .putInt(rules.WIN_LENGTH).putInt(rules.EMPTY_TILE_KEY).putInt(rules.PLAYER_O_KEY)
+                  .putInt(rules.PLAYER_X_KEY).flip();
+            while (HEADER.hasRemaining()) {
+                CHANNEL.write(HEADER);
+            }
+            return new GameRecordWriter(rules, CHANNEL);
+        } catch (IOException | RuntimeException e) {
+            CHANNEL.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Archives the moves leading to the current position of a game
+     * @param game the game to archive
+     * @throws IOException if the records could not be written
+     */
+    public void writeMoves(TickTackToe game) throws IOException {
+
+        checkRules(game);
+        reserve();
+
+        BUFFER.put(MOVES_RECORD);
+        BUFFER.put((byte) owner(game.winner()));
+        putVarint(game.turn);
+        for (int turn = 0; turn < game.turn; turn++) {
+            putVarint(game.getMove(turn));
+        }
+        records++;
+    }
+
+    /**
+     * Archives the tiles of a game, without the order they were played in
+     * @param game the game to archive
+     * @throws IOException if the records could not be written
+     */
+    public void writeSnapshot(TickTackToe game) throws IOException {
+
+        checkRules(game);
+        reserve();
+
+        BUFFER.put(SNAPSHOT_RECORD);
+        BUFFER.put((byte) owner(game.winner()));
+        putVarint(game.turn);
+
+        // packs 4 tiles per byte, the first tile in the lowest bits
+        int packed = 0;
+        int tile = 0;
+        for (int y = 0; y < BOARD_HEIGHT; y++) {
+            final int[] ROW = game.BOARD[y];
+            for (int x = 0; x < BOARD_WIDTH; x++, tile++) {
+                packed |= owner(ROW[x]) << 2 * (tile & 3);
+                if ((tile & 3) == 3) {
+                    BUFFER.put((byte) packed);
+                    packed = 0;
+                }
+            }
+        }
+        if ((tile & 3) != 0) {
+            BUFFER.put((byte) packed);
+        }
+        records++;
+    }
+
+    /**
+     * Gets the number of records written
+     * @return the number of records
+     */
+    public long getRecords() {
+        return records;
+    }
+
+    /**
+     * Writes the records gathered so far to the file
+     * @throws IOException if the records could not be written
+     */
+    public void flush() throws IOException {
+        BUFFER.flip();
+        while (BUFFER.hasRemaining()) {
+            CHANNEL.write(BUFFER);
+        }
+        BUFFER.clear();
+    }
+
+    /**
+     * Writes the remaining records and closes the file
+     * @throws IOException if the records could not be written
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            CHANNEL.close();
+        }
+    }
+
+    /**
+     * Determines whether boards of the given size can be archived
+     * @param width the number of columns of the board
+     * @param height the number of rows of the board
+     * @return whether the board has at least one and at most {@link #MAX_TILES} tiles
+     */
+    static boolean isArchivable(int width, int height) {
+        return width >= 1 && height >= 1 && (long) width * height <= MAX_TILES;
+    }
+
+    /**
+     * Computes the largest record a board can take up
+     * @param tiles the number of tiles of the board
+     * @return the size of the largest record, in bytes
+     */
+    static int maxRecordBytes(int tiles) {
+        // a tag, a result, a count then either one varint per move or 2 bits per tile
+        return 2 + MAX_VARINT_BYTES + Math.max(tiles * MAX_VARINT_BYTES, (tiles + 3) / 4);
+    }
+
+    /**
+     * Checks a game is played with the rules of the archive
+     * @param game the game to check
+     */
+    private void checkRules(TickTackToe game) {
+
+        // if the game is not played with the archive's rules...
+        if (game.BOARD_WIDTH != BOARD_WIDTH || game.BOARD_HEIGHT != BOARD_HEIGHT || game.WIN_LENGTH != WIN_LENGTH
+            || game.EMPTY_TILE_KEY != EMPTY_TILE_KEY || game.PLAYER_O_KEY != PLAYER_O_KEY
+            || game.PLAYER_X_KEY != PLAYER_X_KEY) {
+            // throws an error
+            throw new IllegalArgumentException(String.format("Archive holds %sx%s games with a win length of %s",
+                                                             BOARD_WIDTH, BOARD_HEIGHT, WIN_LENGTH));
+        }
+    }
+
+    /**
+     * Makes room in the buffer for the largest record
+     * @throws IOException if the buffer could not be written
+     */
+    private void reserve() throws IOException {
+        if (BUFFER.remaining() < MAX_RECORD_BYTES) {
+            flush();
+        }
+    }
+
+    /**
+     * Converts a tile or winner into its owner in the archive
+     * @param key the key of the tile or winner
+     * @return {@link #NOBODY}, {@link #PLAYER_X} or {@link #PLAYER_O}
+     */
+    private int owner(int key) {
+        return key == PLAYER_X_KEY ? PLAYER_X : key == PLAYER_O_KEY ? PLAYER_O : NOBODY;
+    }
+
+    /**
+     * Writes a non-negative int 7 bits at a time, lowest bits first
+     * @param value the value to write
+     */
+    private void putVarint(int value) {
+        while ((value & ~0x7F) != 0) {
+            BUFFER.put((byte) (value & 0x7F | 0x80));
+            value >>>= 7;
+        }
+        BUFFER.put((byte) value);
+    }
+}
@@ -0,0 +1,345 @@
+package TickTackToe;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Plays scripted games read from a channel, writing one result line per game
+ * <br>
+ * Scripts hold one game per line : the rules, a colon, then the x and y coordinates of every move in order.
+ * The rules are either a dimension, for square boards where a whole line is needed, or a width, height and win
+ * length. Numbers are separated by spaces, tabs or commas ; blank lines and lines starting with '#' are skipped :
+ * <pre>
+ *     3 : 0 0  1 1  0 1  2 2  0 2
+ *     7 6 4 : 3,5 3,4 2,5
+ * </pre>
+ * Every game answers a line "line result played rejected hash", where result is X, O, DRAW or NONE while the game
+ * goes on, played and rejected count the moves placed and refused (off the board, on a taken tile or after a win),
+ * and hash is the zobrist hash of the final position in hexadecimal. Malformed games answer "line ERROR reason".
+ * <br>
+ * Scripts are parsed byte by byte out of a reusable buffer, and consecutive games with the same rules reuse
+ * the same board, so running a script allocates next to nothing however many games it holds
+ */
+public class GameScriptRunner {
+
+    // the size of the buffers, the input buffer growing to fit longer lines
+    private static final int BUFFER_BYTES = 1 << 16;
+
+    // the longest line accepted, enough for every move of the largest board
+    private static final int MAX_LINE_BYTES = 1 << 26;
+
+    // value of a missing or malformed number
+    private static final int MALFORMED = -1;
+
+    // the digits of hashes
+    private static final byte[] HEX_DIGITS = {'0', '1', '2', '3', '4', '5', '6', '7',
+                                              '8', '9', 'a', 'b', 'c', 'd', 'e', 'f'};
+
+    // where the scripts are read from and the results written to
+    private final ReadableByteChannel IN;
+    private final WritableByteChannel OUT;
+
+    // the bytes read and not yet parsed, and the results not yet written
+    private ByteBuffer input = ByteBuffer.allocate(BUFFER_BYTES);
+    private final ByteBuffer OUTPUT = ByteBuffer.allocateDirect(BUFFER_BYTES);
+
+    // the line being parsed
+    private byte[] line;
+    private int cursor;
+    private int lineEnd;
+    private long lineNumber;
+
+    // the board of the last game, reused by games with the same rules
+    private TickTackToe game;
+
+    // the games played, the moves they placed and the lines which could not be played
+    private long games = 0;
+    private long moves = 0;
+    private long errors = 0;
+
+    /**
+     * Creates a runner of scripts
+     * @param in where the scripts are read from
+     * @param out where the results are written to
+     */
+    public GameScriptRunner(ReadableByteChannel in, WritableByteChannel out) {
+        this.IN = in;
+        this.OUT = out;
+    }
+
+    /**
+     * Plays every game until the end of the input, then writes the remaining results
+     * @throws IOException if the scripts could not be read or the results written
+     */
+    public void run() throws IOException {
+
+        lineNumber = 0;
+        int scanned = 0;
+        boolean ended = false;
+
+        while (!ended) {
+            ended = IN.read(input) < 0;
+            line = input.array();
+
+            // plays every complete line
+            int start = 0;
+            for (int i = scanned; i < input.position(); i++) {
+                if (line[i] == '\n') {
+                    handle(start, i);
+                    start = i + 1;
+                }
+            }
+
+            // the last line may end without a line feed
+            if (ended && start < input.position()) {
+                handle(start, input.position());
+                start = input.position();
+            }
+
+            // keeps the start of the next line at the front of the buffer
+            input.flip().position(start);
+            input.compact();
+            scanned = input.position();
+
+            // makes room for lines longer than the buffer
+            if (!input.hasRemaining()) {
+                if (input.capacity() >= MAX_LINE_BYTES) {
+                    throw new IOException(String.format("Line %s is longer than %s bytes", lineNumber + 1,
+                                                        MAX_LINE_BYTES));
+                }
+                final ByteBuffer LARGER = ByteBuffer.allocate(2 * input.capacity());
+                input.flip();
+                LARGER.put(input);
+                input = LARGER;
+            }
+        }
+
+        flush();
+    }
+
+    /**
+     * Gets the number of games played
+     * @return the number of games
+     */
+    public long getGames() {
+        return games;
+    }
+
+    /**
+     * Gets the number of pawns placed across every game
+     * @return the number of moves
+     */
+    public long getMoves() {
+        return moves;
+    }
+
+    /**
+     * Gets the number of lines which could not be played
+     * @return the number of malformed games
+     */
+    public long getErrors() {
+        return errors;
+    }
+
+    /**
+     * Plays the game of a line and writes its result
+     * @param start the index of the first byte of the line
+     * @param end the index of the line feed ending the line
+     * @throws IOException if the result could not be written
+     */
+    private void handle(int start, int end) throws IOException {
+
+        lineNumber++;
+        cursor = start;
+        lineEnd = end > start && line[end - 1] == '\r' ? end - 1 : end;
+
+        // skips blank lines and comments
+        skipSeparators();
+        if (cursor == lineEnd || line[cursor] == '#') {
+            return;
+        }
+
+        // reads the rules, up to the colon
+        final int FIRST = nextNumber();
+        final int SECOND = nextNumber();
+        final int THIRD = SECOND == MALFORMED ? FIRST : nextNumber();
+        final int WIDTH = FIRST;
+        final int HEIGHT = SECOND == MALFORMED ? FIRST : SECOND;
+        skipSeparators();
+        if (FIRST == MALFORMED || THIRD == MALFORMED || cursor == lineEnd || line[cursor] != ':') {
+            error("malformed rules");
+            return;
+        }
+        cursor++;
+        if (WIDTH < 1 || HEIGHT < 1 || WIDTH > GameServer.MAX_BOARD_DIMENSIONS
+            || HEIGHT > GameServer.MAX_BOARD_DIMENSIONS) {
+            error("invalid board dimensions");
+            return;
+        }
+
+        // reuses the last board when the rules are the same
+        if (game != null && game.BOARD_WIDTH == WIDTH && game.BOARD_HEIGHT == HEIGHT && game.WIN_LENGTH == THIRD) {
+            game.reset();
+        } else {
+            try {
+                game = new TickTackToe(WIDTH, HEIGHT, THIRD, GameSessions.EMPTY_TILE_KEY,
+                                       GameSessions.PLAYER_O_KEY, GameSessions.PLAYER_X_KEY);
+            } catch (IllegalArgumentException e) {
+                game = null;
+                error(e.getMessage());
+                return;
+            }
+        }
+
+        // plays every move, refusing tiles off the board or taken, and moves once the game is won
+        int played = 0;
+        int rejected = 0;
+        while (!atEnd()) {
+            final int X = nextNumber();
+            final int Y = nextNumber();
+            if (X == MALFORMED || Y == MALFORMED) {
+                error("malformed move");
+                return;
+            }
+            if (X >= game.BOARD_WIDTH || Y >= game.BOARD_HEIGHT || game.winner() != game.EMPTY_TILE_KEY
+                || !game.isPlayableTile(Y, X)) {
+                rejected++;
+                continue;
+            }
+            game.play(X, Y);
+            played++;
+        }
+
+        // writes the result
+        final int WINNER = game.winner();
+        ensureOutput(64);
+        appendNumber(lineNumber).put((byte) ' ');
+        append(WINNER == game.PLAYER_X_KEY ? "X" : WINNER == game.PLAYER_O_KEY ? "O"
+             : game.hasSpaceLeft() ? "NONE" : "DRAW");
+        OUTPUT.put((byte) ' ');
+        appendNumber(played).put((byte) ' ');
+        appendNumber(rejected).put((byte) ' ');
+        final long HASH = game.getZobristHash();
+        for (int shift = 60; shift >= 0; shift -= 4) {
+            OUTPUT.put(HEX_DIGITS[(int) (HASH >>> shift) & 0xF]);
+        }
+        OUTPUT.put((byte) '\n');
+
+        games++;
+        moves += played;
+    }
+
+    /**
+     * Writes the error of a line
+     * @param reason why the line could not be played
+     * @throws IOException if the error could not be written
+     */
+    private void error(String reason) throws IOException {
+        ensureOutput(32 + reason.length());
+        appendNumber(lineNumber);
+        append(" ERROR ");
+        append(reason);
+        OUTPUT.put((byte) '\n');
+        errors++;
+    }
+
+    /**
+     * Skips the separators in front of the parser
+     */
+    private void skipSeparators() {
+        while (cursor < lineEnd && (line[cursor] == ' ' || line[cursor] == '\t' || line[cursor] == ',')) {
+            cursor++;
+        }
+    }
+
+    /**
+     * Reads the next token as a positive number
+     * @return the number, or {@link #MALFORMED} if the token is missing or not a number
+     */
+    private int nextNumber() {
+
+        skipSeparators();
+
+        final int START = cursor;
+        int number = 0;
+        while (cursor < lineEnd && line[cursor] >= '0' && line[cursor] <= '9') {
+            // rejects numbers too long to be coordinates
+            if (cursor - START >= 9) {
+                return MALFORMED;
+            }
+            number = 10 * number + line[cursor] - '0';
+            cursor++;
+        }
+
+        // the number must end at a separator, a colon or the end of the line
+        if (cursor == START || cursor < lineEnd && line[cursor] != ' ' && line[cursor] != '\t'
+                                                && line[cursor] != ',' && line[cursor] != ':') {
+            return MALFORMED;
+        }
+        return number;
+    }
+
+    /**
+     * Determines whether the whole line has been read
+     * @return whether only separators are left
+     */
+    private boolean atEnd() {
+        skipSeparators();
+        return cursor == lineEnd;
+    }
+
+    /**
+     * Queues ASCII text
+     * @param text the text to queue, which must fit in the output
+     */
+    private void append(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            OUTPUT.put((byte) text.charAt(i));
+        }
+    }
+
+    /**
+     * Queues a positive number in decimal
+     * @param number the number to queue, which must fit in the output
+     * @return the output
+     */
+    private ByteBuffer appendNumber(long number) {
+
+        // writes the digits backwards, then moves past them
+        int digits = 1;
+        for (long rest = number / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        final int START = OUTPUT.position();
+        for (int i = START + digits - 1; i >= START; i--) {
+            OUTPUT.put(i, (byte) ('0' + number % 10));
+            number /= 10;
+        }
+        return OUTPUT.position(START + digits);
+    }
+
+    /**
+     * Makes room for more results, writing the queued ones if needed
+     * @param bytes the number of bytes about to be queued
+     * @throws IOException if the results could not be written
+     */
+    private void ensureOutput(int bytes) throws IOException {
+        if (OUTPUT.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    /**
+     * Writes the queued results
+     * @throws IOException if the results could not be written
+     */
+    private void flush() throws IOException {
+        OUTPUT.flip();
+        while (OUTPUT.hasRemaining()) {
+            OUT.write(OUTPUT);
+        }
+        OUTPUT.clear();
+    }
+}
@@ -0,0 +1,562 @@
+package TickTackToe;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+/**
+ * Serves games over a local TCP port, on a single non-blocking selector thread
+ * <br>
+ * Clients send ASCII lines ending with '\n' and get one line back per request, in the order they were sent,
+ * so any number of requests may be pipelined without waiting for the answers :
+ * <ul>
+ *     <li>NEW dimension | NEW width height winLength : starts a game, answers "OK id"
+ *     <li>PLAY id x y : places the current player's pawn, answers "OK", "ERR off board" or "ERR illegal move"
+ *     <li>WIN id : answers "OK X", "OK O", "OK DRAW" or "OK NONE" while the game goes on
+ *     <li>TURN id : answers the player whose turn it is, "OK X" or "OK O"
+ *     <li>BOARD id : answers the board row by row, rows separated by '/', e.g. "OK X_O/_X_/O__"
+ *     <li>QUIT id : retires the game, answers "OK"
+ *     <li>METRICS : answers the {@link GameMetrics} of the process, as "OK name value name value ..."
+ * </ul>
+ * Malformed requests answer "ERR" followed by the reason, and leave the connection open.
+ * A connection may only have {@link #MAX_GAMES_PER_CONNECTION} games going on at once, and the games it started are
+ * retired when it closes
+ */
+public class GameServer implements Closeable {
+
+    // the longest request line accepted
+    public static final int MAX_LINE_BYTES = 256;
+
+    // the largest board a client may ask for
+    public static final int MAX_BOARD_DIMENSIONS = 1024;
+
+    // the most games a connection may have going on at once
+    public static final int MAX_GAMES_PER_CONNECTION = 64;
+
+    // connections stop being read while this many answer bytes wait to be sent
+    private static final int MAX_PENDING_OUTPUT = 1 << 16;
+
+    // the characters of the tiles in board snapshots
+    private static final byte X_GLYPH = 'X';
+    private static final byte O_GLYPH = 'O';
+    private static final byte EMPTY_GLYPH = '_';
+    private static final byte ROW_SEPARATOR = '/';
+
+    // value of a number which could not be read
+    private static final long MALFORMED = Long.MIN_VALUE;
+
+    // the commands, as sent on the wire
+    private static final byte[] NEW = bytes("NEW");
+    private static final byte[] PLAY = bytes("PLAY");
+    private static final byte[] WIN = bytes("WIN");
+    private static final byte[] TURN = bytes("TURN");
+    private static final byte[] BOARD = bytes("BOARD");
+    private static final byte[] QUIT = bytes("QUIT");
+    private static final byte[] METRICS = bytes("METRICS");
+
+    // the games served
+    private final GameSessions SESSIONS;
+
+    // the listening socket and the selector watching every connection
+    private final ServerSocketChannel SERVER;
+    private final Selector SELECTOR;
+
+    // whether the server has been asked to stop
+    private volatile boolean closed;
+
+    // the request being parsed and the position of the parser within it
+    private ByteBuffer line;
+    private int cursor;
+    private int lineEnd;
+
+    /**
+     * Opens a server on the loopback interface
+     * @param sessions the games served
+     * @param port the port to listen on, 0 to pick any free port
+     * @throws IOException if the port could not be bound
+     */
+    public GameServer(GameSessions sessions, int port) throws IOException {
+        this.SESSIONS = sessions;
+        this.SELECTOR = Selector.open();
+        this.SERVER = ServerSocketChannel.open();
+        SERVER.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        SERVER.configureBlocking(false);
+        SERVER.register(SELECTOR, SelectionKey.OP_ACCEPT);
+    }
+
+    /**
+     * Gets the port the server listens on
+     * @return the local port
+     * @throws IOException if the socket is closed
+     */
+    public int getPort() throws IOException {
+        return ((InetSocketAddress) SERVER.getLocalAddress()).getPort();
+    }
+
+    /**
+     * Serves connections until the server is closed
+     * @throws IOException if the selector fails
+     */
+    public void run() throws IOException {
+        while (!closed) {
+            SELECTOR.select();
+
+            final Iterator<SelectionKey> KEYS = SELECTOR.selectedKeys().iterator();
+            while (KEYS.hasNext()) {
+                final SelectionKey KEY = KEYS.next();
+                KEYS.remove();
+
+                if (!KEY.isValid()) {
+                    continue;
+                }
+
+                // the listening socket outlives any connection it fails to set up
+                if (KEY.isAcceptable()) {
+                    accept();
+                    continue;
+                }
+
+                // a connection failing only closes that connection
+                try {
+                    if (KEY.isWritable()) {
+                        write(KEY);
+                    }
+                    if (KEY.isValid() && KEY.isReadable()) {
+                        read(KEY);
+                    }
+                } catch (IOException | RuntimeException e) {
+                    // a request the server could not handle closes its own connection, not the server
+                    disconnect(KEY);
+                }
+            }
+        }
+
+        // closes every connection left
+        for (SelectionKey key : SELECTOR.keys()) {
+            key.channel().close();
+        }
+        SELECTOR.close();
+    }
+
+    /**
+     * Stops the server, {@link #run()} returns once the current requests are answered
+     * @throws IOException if the listening socket could not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        SELECTOR.wakeup();
+        SERVER.close();
+    }
+
+    /**
+     * Accepts a waiting connection, dropping it if it could not be set up
+     */
+    private void accept() {
+
+        final SocketChannel CHANNEL;
+        try {
+            CHANNEL = SERVER.accept();
+        } catch (IOException e) {
+            // the connection stays queued, to be accepted once the cause is gone (e.g. too many open files)
+            return;
+        }
+        if (CHANNEL == null) {
+            return;
+        }
+
+        try {
+            CHANNEL.configureBlocking(false);
+            CHANNEL.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            CHANNEL.register(SELECTOR, SelectionKey.OP_READ, new Connection());
+        } catch (IOException | RuntimeException e) {
+            try {
+                CHANNEL.close();
+            } catch (IOException ignored) {
+                // the connection is gone either way
+            }
+        }
+    }
+
+    /**
+     * Reads what a connection sent and answers every complete request
+     * @param key the key of the connection
+     * @throws IOException if the connection failed
+     */
+    private void read(SelectionKey key) throws IOException {
+
+        final Connection CONNECTION = (Connection) key.attachment();
+        final ByteBuffer INPUT = CONNECTION.input;
+
+        if (((SocketChannel) key.channel()).read(INPUT) < 0) {
+            disconnect(key);
+            return;
+        }
+
+        // answers every complete line
+        INPUT.flip();
+        int start = INPUT.position();
+        for (int i = start; i < INPUT.limit(); i++) {
+            if (INPUT.get(i) == '\n') {
+                // the end of a line too long to answer is dropped with it
+                if (CONNECTION.discarding) {
+                    CONNECTION.discarding = false;
+                } else {
+                    handle(CONNECTION, INPUT, start, i);
+                }
+                start = i + 1;
+            }
+        }
+        INPUT.position(start);
+        INPUT.compact();
+
+        // a line filling the whole buffer can never end, the rest of it is skipped up to the next '\n'
+        if (!INPUT.hasRemaining()) {
+            INPUT.clear();
+            if (!CONNECTION.discarding) {
+                CONNECTION.discarding = true;
+                CONNECTION.append("ERR line too long\n");
+            }
+        }
+
+        write(key);
+    }
+
+    /**
+     * Sends the pending answers of a connection, only reading more requests once most of them are sent
+     * @param key the key of the connection
+     * @throws IOException if the connection failed
+     */
+    private void write(SelectionKey key) throws IOException {
+
+        final Connection CONNECTION = (Connection) key.attachment();
+        final ByteBuffer OUTPUT = CONNECTION.output;
+
+        OUTPUT.flip();
+        ((SocketChannel) key.channel()).write(OUTPUT);
+        OUTPUT.compact();
+
+        // waits for the socket to drain rather than piling up answers
+        int interest = OUTPUT.position() > 0 ? SelectionKey.OP_WRITE : 0;
+        if (OUTPUT.position() < MAX_PENDING_OUTPUT) {
+            interest |= SelectionKey.OP_READ;
+        }
+        key.interestOps(interest);
+    }
+
+    /**
+     * Closes a connection and retires the games it started
+     * @param key the key of the connection
+     */
+    private void disconnect(SelectionKey key) {
+
+        // games outliving their connection could never be retired, and would pile up with every reconnection
+        if (key.attachment() instanceof Connection) {
+            for (long id : ((Connection) key.attachment()).games) {
+                SESSIONS.retire(id);
+            }
+            ((Connection) key.attachment()).games.clear();
+        }
+
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException e) {
+            // the connection is gone either way
+        }
+    }
+
+    /**
+     * Answers a single request
+     * @param connection the connection which sent the request
+     * @param input the bytes holding the request
+     * @param start the index of the first byte of the request
+     * @param end the index of the '\n' ending the request
+     */
+    private void handle(Connection connection, ByteBuffer input, int start, int end) {
+
+        line = input;
+        cursor = start;
+        lineEnd = end > start && input.get(end - 1) == '\r' ? end - 1 : end;
+
+        // blank lines are ignored
+        skipSpaces();
+        if (cursor == lineEnd) {
+            return;
+        }
+
+        if (nextTokenIs(NEW)) {
+            final long FIRST = nextNumber();
+            final long HEIGHT = nextNumber();
+            final long WIN_LENGTH = HEIGHT == MALFORMED ? MALFORMED : nextNumber();
+            if (FIRST == MALFORMED || HEIGHT != MALFORMED && WIN_LENGTH == MALFORMED || !atEnd()) {
+                connection.append("ERR bad request\n");
+                return;
+            }
+            if (FIRST > MAX_BOARD_DIMENSIONS || HEIGHT > MAX_BOARD_DIMENSIONS || WIN_LENGTH > MAX_BOARD_DIMENSIONS) {
+                connection.append("ERR invalid board\n");
+                return;
+            }
+            if (!connection.canCreateGame(SESSIONS)) {
+                connection.append("ERR too many games\n");
+                return;
+            }
+            try {
+                final long ID = HEIGHT == MALFORMED
+                              ? SESSIONS.create((int) FIRST)
+                              : SESSIONS.create((int) FIRST, (int) HEIGHT, (int) WIN_LENGTH, GameSessions.EMPTY_TILE_KEY,
+                                                GameSessions.PLAYER_O_KEY, GameSessions.PLAYER_X_KEY);
+                connection.games.add(ID);
+                connection.append("OK ").appendNumber(ID).append("\n");
+            } catch (IllegalArgumentException e) {
+                connection.append("ERR invalid board\n");
+            }
+            return;
+        }
+
+        if (nextTokenIs(METRICS)) {
+            if (!atEnd()) {
+                connection.append("ERR bad request\n");
+                return;
+            }
+            // keeps the answer on a single line
+            connection.append("OK ").append(GameMetrics.dump().trim().replace('\n', ' ')).append("\n");
+            return;
+        }
+
+        // every other command starts with a game ID
+        final byte[] COMMAND = nextTokenIs(PLAY) ? PLAY : nextTokenIs(WIN) ? WIN : nextTokenIs(TURN) ? TURN
+                             : nextTokenIs(BOARD) ? BOARD : nextTokenIs(QUIT) ? QUIT : null;
+        if (COMMAND == null) {
+            connection.append("ERR unknown command\n");
+            return;
+        }
+        final long ID = nextNumber();
+        final long X = COMMAND == PLAY ? nextNumber() : 0;
+        final long Y = COMMAND == PLAY ? nextNumber() : 0;
+        if (ID == MALFORMED || X == MALFORMED || Y == MALFORMED || !atEnd()) {
+            connection.append("ERR bad request\n");
+            return;
+        }
+
+        if (COMMAND == QUIT) {
+            connection.games.remove(ID);
+            connection.append(SESSIONS.retire(ID) ? "OK\n" : "ERR unknown game\n");
+            return;
+        }
+
+        final TickTackToe GAME = SESSIONS.get(ID);
+        if (GAME == null) {
+            connection.append("ERR unknown game\n");
+            return;
+        }
+
+        if (COMMAND == PLAY) {
+            // coordinates outside of the board never reach the game
+            if (X >= GAME.BOARD_WIDTH || Y >= GAME.BOARD_HEIGHT) {
+                connection.append("ERR off board\n");
+                return;
+            }
+            connection.append(SESSIONS.play(ID, (int) X, (int) Y) ? "OK\n" : "ERR illegal move\n");
+            return;
+        }
+
+        synchronized (GAME) {
+            if (COMMAND == WIN) {
+                final int WINNER = GAME.winingPlayer();
+                connection.append(WINNER == GAME.PLAYER_X_KEY ? "OK X\n"
+                                : WINNER == GAME.PLAYER_O_KEY ? "OK O\n"
+                                : GAME.hasSpaceLeft() ? "OK NONE\n" : "OK DRAW\n");
+            } else if (COMMAND == TURN) {
+                connection.append(GAME.curPlayerTurn() == GAME.PLAYER_X_KEY ? "OK X\n" : "OK O\n");
+            } else {
+                connection.append("OK ");
+                connection.appendBoard(GAME);
+                connection.append("\n");
+            }
+        }
+    }
+
+    /**
+     * Skips the spaces in front of the parser
+     */
+    private void skipSpaces() {
+        while (cursor < lineEnd && line.get(cursor) == ' ') {
+            cursor++;
+        }
+    }
+
+    /**
+     * Reads the next token if it matches a word, ignoring case
+     * @param word the expected word, in upper case
+     * @return whether the token matched and was read
+     */
+    private boolean nextTokenIs(byte[] word) {
+
+        skipSpaces();
+
+        // the token must match the whole word and end right after it
+        if (lineEnd - cursor < word.length) {
+            return false;
+        }
+        for (int i = 0; i < word.length; i++) {
+            if ((line.get(cursor + i) & ~0x20) != word[i]) {
+                return false;
+            }
+        }
+        if (cursor + word.length < lineEnd && line.get(cursor + word.length) != ' ') {
+            return false;
+        }
+
+        cursor += word.length;
+        return true;
+    }
+
+    /**
+     * Reads the next token as a positive number
+     * @return the number, or {@link #MALFORMED} if the token is missing or not a number
+     */
+    private long nextNumber() {
+
+        skipSpaces();
+
+        final int START = cursor;
+        long number = 0;
+        while (cursor < lineEnd && line.get(cursor) != ' ') {
+            final int DIGIT = line.get(cursor) - '0';
+            // rejects anything but digits, and numbers too long to be IDs
+            if (DIGIT < 0 || DIGIT > 9 || cursor - START >= 18) {
+                return MALFORMED;
+            }
+            number = 10 * number + DIGIT;
+            cursor++;
+        }
+
+        return cursor == START ? MALFORMED : number;
+    }
+
+    /**
+     * Determines whether the whole request has been read
+     * @return whether only spaces are left
+     */
+    private boolean atEnd() {
+        skipSpaces();
+        return cursor == lineEnd;
+    }
+
+    /**
+     * Converts an ASCII word into bytes
+     * @param word the word
+     * @return the bytes of the word
+     */
+    private static byte[] bytes(String word) {
+        return word.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * The buffers of a client connection
+     */
+    private static final class Connection {
+
+        // the bytes received and not yet answered
+        private final ByteBuffer input = ByteBuffer.allocate(MAX_LINE_BYTES);
+
+        // the answers not yet sent, grown as needed
+        private ByteBuffer output = ByteBuffer.allocate(1024);
+
+        // whether the rest of a line too long to answer is being skipped
+        private boolean discarding = false;
+
+        // the IDs of the games started by the connection
+        private final Set<Long> games = new HashSet<>();
+
+        /**
+         * Determines whether the connection may start another game, forgetting the games which have since ended
+         * @param sessions the games served
+         * @return whether the connection has fewer than {@link #MAX_GAMES_PER_CONNECTION} games going on
+         */
+        private boolean canCreateGame(GameSessions sessions) {
+            if (games.size() >= MAX_GAMES_PER_CONNECTION) {
+                // games may have been retired by another connection
+                games.removeIf(id -> sessions.get(id) == null);
+            }
+            return games.size() < MAX_GAMES_PER_CONNECTION;
+        }
+
+        /**
+         * Queues ASCII text
+         * @param text the text to queue
+         * @return this connection
+         */
+        private Connection append(String text) {
+            ensureOutput(text.length());
+            for (int i = 0; i < text.length(); i++) {
+                output.put((byte) text.charAt(i));
+            }
+            return this;
+        }
+
+        /**
+         * Queues a positive number in decimal
+         * @param number the number to queue
+         * @return this connection
+         */
+        private Connection appendNumber(long number) {
+            ensureOutput(20);
+
+            // writes the digits backwards, then moves past them
+            int digits = 1;
+            for (long rest = number / 10; rest > 0; rest /= 10) {
+                digits++;
+            }
+            final int START = output.position();
+            for (int i = START + digits - 1; i >= START; i--) {
+                output.put(i, (byte) ('0' + number % 10));
+                number /= 10;
+            }
+            output.position(START + digits);
+            return this;
+        }
+
+        /**
+         * Queues a snapshot of a board
+         * @param game the game whose board is queued
+         */
+        private void appendBoard(TickTackToe game) {
+            ensureOutput(game.BOARD_HEIGHT * (game.BOARD_WIDTH + 1));
+            for (int y = 0; y < game.BOARD_HEIGHT; y++) {
+                if (y > 0) {
+                    output.put(ROW_SEPARATOR);
+                }
+                final int[] ROW = game.BOARD[y];
+                for (int x = 0; x < game.BOARD_WIDTH; x++) {
+                    output.put(ROW[x] == game.PLAYER_X_KEY ? X_GLYPH : ROW[x] == game.PLAYER_O_KEY ? O_GLYPH : EMPTY_GLYPH);
+                }
+            }
+        }
+
+        /**
+         * Makes room for more answers
+         * @param bytes the number of bytes about to be queued
+         */
+        private void ensureOutput(int bytes) {
+            if (output.remaining() < bytes) {
+                final ByteBuffer GROWN = ByteBuffer.allocate(Math.max(2 * output.capacity(), output.position() + bytes));
+                output.flip();
+                GROWN.put(output);
+                output = GROWN;
+            }
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package TickTackToe;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hosts any number of independent games, each known by a unique ID
+ * <br>
+ * Games live in a concurrent registry, so different threads can create, drive and retire different games at once.
+ * Moves played through {@link #play(long, int, int)} lock their own game only.
+ * Retired games are emptied and kept in a bounded pool per set of rules, to be handed out again by later creations
+ */
+public class GameSessions {
+
+    // default keys of the tiles
+    public static final int EMPTY_TILE_KEY = 0;
+    public static final int PLAYER_O_KEY = -1;
+    public static final int PLAYER_X_KEY = 1;
+
+    // default number of retired games kept for each set of rules
+    public static final int DEFAULT_POOL_SIZE = 1024;
+
+    // the rules key of games which are never pooled, since their rules do not fit in a key
+    private static final long UNPOOLED = -1;
+
+    // the games in progress, by ID
+    private final ConcurrentHashMap<Long, TickTackToe> GAMES = new ConcurrentHashMap<>();
+
+    // retired games ready to be handed out again, by rules
+    private final ConcurrentHashMap<Long, ArrayBlockingQueue<TickTackToe>> POOLS = new ConcurrentHashMap<>();
+
+    // the number of retired games kept for each set of rules
+    private final int POOL_SIZE;
+
+    // the ID of the next game
+    private final AtomicLong NEXT_ID = new AtomicLong(1);
+
+    /**
+     * Creates a session manager keeping up to {@link #DEFAULT_POOL_SIZE} retired games per set of rules
+     */
+    public GameSessions() {
+        this(DEFAULT_POOL_SIZE);
+    }
+
+    /**
+     * Creates a session manager
+     * @param poolSize the number of retired games kept for each set of rules
+     */
+    public GameSessions(int poolSize) {
+
+        // if the pool size is negative...
+        if (poolSize < 0) {
+            // throws an error
+            throw new IllegalArgumentException("Pool size cannot be negative");
+        }
+
+        this.POOL_SIZE = poolSize;
+    }
+
+    /**
+     * Starts a game on a square board with the default keys, where players must fill a whole line
+     * @param dimension the size of the board
+     * @return the ID of the game
+     */
+    public long create(int dimension) {
+        return create(dimension, dimension, dimension, EMPTY_TILE_KEY, PLAYER_O_KEY, PLAYER_X_KEY);
+    }
+
+    /**
+     * Starts a game
+     * @param width the number of columns of the board
+     * @param height the number of rows of the board
+     * @param winLength the number of aligned pawns needed to win
+     * @param EMPTY_TILE_KEY integer representing empty tiles in the board
+     * @param PLAYER_O_KEY integer representing player O in the board
+     * @param PLAYER_X_KEY integer representing player X in the board
+     * @return the ID of the game
+     */
+    public long create(int width, int height, int winLength,
+                       int EMPTY_TILE_KEY, int PLAYER_O_KEY, int PLAYER_X_KEY) {
+
+        // reuses a retired game with the same rules, or creates a new one which checks the rules
+        final long RULES = rulesKey(width, height, winLength, EMPTY_TILE_KEY, PLAYER_O_KEY, PLAYER_X_KEY);
+        final ArrayBlockingQueue<TickTackToe> POOL = RULES == UNPOOLED ? null : POOLS.get(RULES);
+        TickTackToe game = POOL == null ? null : POOL.poll();
+        if (game == null) {
+            game = new TickTackToe(width, height, winLength, EMPTY_TILE_KEY, PLAYER_O_KEY, PLAYER_X_KEY);
+        }
+
+        final long ID = NEXT_ID.getAndIncrement();
+        GAMES.put(ID, game);
+        return ID;
+    }
+
+    /**
+     * Gets a game in progress
+     * <br>
+     * Callers sharing a game between threads must synchronize on it, as {@link #play(long, int, int)} does
+     * @param id the ID of the game
+     * @return the game, or null if there is no such game
+     */
+    public TickTackToe get(long id) {
+        return GAMES.get(id);
+    }
+
+    /**
+     * Places the current player's pawn, if the game is still going on and the tile is on the board and empty
+     * @param id the ID of the game
+     * @param x the x-coordinates of the pawn
+     * @param y the y-coordinates of the pawn
+     * @return whether the pawn was placed
+     */
+    public boolean play(long id, int x, int y) {
+
+        final TickTackToe GAME = GAMES.get(id);
+
+        // if there is no such game...
+        if (GAME == null) {
+            return false;
+        }
+
+        // a tile outside of the board refuses the move
+        if (x < 0 || y < 0 || x >= GAME.BOARD_WIDTH || y >= GAME.BOARD_HEIGHT) {
+            return false;
+        }
+
+        synchronized (GAME) {
+            // the game may have been retired, and its board handed to another game, since it was looked up
+            if (GAMES.get(id) != GAME) {
+                return false;
+            }
+
+            // a finished game or a taken tile refuses the move
+            if (GAME.winner() != GAME.EMPTY_TILE_KEY || !GAME.isPlayableTile(y, x)) {
+                return false;
+            }
+            GAME.play(x, y);
+            return true;
+        }
+    }
+
+    /**
+     * Ends a game, making its board available to later games with the same rules
+     * <br>
+     * The game must no longer be used once retired
+     * @param id the ID of the game
+     * @return whether there was such a game
+     */
+    public boolean retire(long id) {
+
+        final TickTackToe GAME = GAMES.remove(id);
+
+        // if there is no such game...
+        if (GAME == null) {
+            return false;
+        }
+
+        // empties the board under the game's lock, so a move in progress finishes first
+        synchronized (GAME) {
+            GAME.reset();
+        }
+
+        // keeps the board unless the pool is full
+        final long RULES = rulesKey(GAME.BOARD_WIDTH, GAME.BOARD_HEIGHT, GAME.WIN_LENGTH,
+                                    GAME.EMPTY_TILE_KEY, GAME.PLAYER_O_KEY, GAME.PLAYER_X_KEY);
+        if (POOL_SIZE > 0 && RULES != UNPOOLED) {
+            POOLS.computeIfAbsent(RULES, key -> new ArrayBlockingQueue<>(POOL_SIZE)).offer(GAME);
+        }
+        return true;
+    }
+
+    /**
+     * Gets the number of games in progress
+     * @return the number of games
+     */
+    public int size() {
+        return GAMES.size();
+    }
+
+    /**
+     * Gets the number of retired games waiting to be reused
+     * @return the number of pooled games
+     */
+    public int pooledCount() {
+        int count = 0;
+        for (ArrayBlockingQueue<TickTackToe> pool : POOLS.values()) {
+            count += pool.size();
+        }
+        return count;
+    }
+
+    /**
+     * Packs the rules of a game into a single key
+     * @param width the number of columns of the board
+     * @param height the number of rows of the board
+     * @param winLength the number of aligned pawns needed to win
+     * @param EMPTY_TILE_KEY integer representing empty tiles in the board
+     * @param PLAYER_O_KEY integer representing player O in the board
+     * @param PLAYER_X_KEY integer representing player X in the board
+     * @return the key of the rules, or {@link #UNPOOLED} if the rules do not fit in a key
+     */
+    private static long rulesKey(int width, int height, int winLength,
+                                 int EMPTY_TILE_KEY, int PLAYER_O_KEY, int PLAYER_X_KEY) {
+
+        // rules outside of the 16 bits of each field would share the key of other rules
+        if (!fitsKey(width) || !fitsKey(height) || !fitsKey(winLength) || Math.abs(EMPTY_TILE_KEY) > 1
+            || Math.abs(PLAYER_O_KEY) > 1 || Math.abs(PLAYER_X_KEY) > 1) {
+            return UNPOOLED;
+        }
+
+        // every key is -1, 0 or 1, which makes a base 3 number
+        final int KEYS = (EMPTY_TILE_KEY + 1) * 9 + (PLAYER_O_KEY + 1) * 3 + PLAYER_X_KEY + 1;
+        return (long) (width & 0xFFFF) << 48 | (long) (height & 0xFFFF) << 32
+             | (long) (winLength & 0xFFFF) << 16 | KEYS & 0xFFFF;
+    }
+
+    /**
+     * Determines whether a dimension of the rules fits in its field of a rules key
+     * @param value the width, height or win length
+     * @return whether the value is comprised between 1 and 0xFFFF
+     */
+    private static boolean fitsKey(int value) {
+        return value >= 1 && value <= 0xFFFF;
+    }
+}
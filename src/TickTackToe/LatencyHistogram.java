@@ -0,0 +1,86 @@
+package TickTackToe;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts durations in buckets of powers of two, without locks
+ * <br>
+ * Bucket i holds the durations of i significant bits, i.e. between 2^(i-1) and 2^i - 1 nanoseconds,
+ * so percentiles are accurate to a factor of two, which is plenty to spot a regression
+ */
+final class LatencyHistogram {
+
+    // one bucket per bit length of a long
+    private static final int BUCKETS = Long.SIZE + 1;
+
+    // the number of durations in each bucket
+    private final AtomicLongArray COUNTS = new AtomicLongArray(BUCKETS);
+
+    // the sum of every duration
+    private final LongAdder TOTAL = new LongAdder();
+
+    /**
+     * Counts a duration
+     * @param nanos the duration, in nanoseconds
+     */
+    void record(long nanos) {
+        final long DURATION = Math.max(nanos, 0);
+        COUNTS.incrementAndGet(Long.SIZE - Long.numberOfLeadingZeros(DURATION));
+        TOTAL.add(DURATION);
+    }
+
+    /**
+     * Gets the number of durations counted
+     * @return the number of durations
+     */
+    long count() {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            count += COUNTS.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * Gets the sum of every duration counted
+     * @return the total, in nanoseconds
+     */
+    long total() {
+        return TOTAL.sum();
+    }
+
+    /**
+     * Gets an upper bound of a percentile of the durations
+     * @param percentile the percentile, between 0 and 100
+     * @return the largest duration of the bucket holding the percentile, in nanoseconds, 0 if nothing was counted
+     */
+    long percentile(double percentile) {
+
+        final long COUNT = count();
+        if (COUNT == 0) {
+            return 0;
+        }
+
+        // walks up the buckets until enough durations are below
+        final long RANK = Math.max(1, (long) Math.ceil(percentile / 100 * COUNT));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += COUNTS.get(i);
+            if (seen >= RANK) {
+                return i == 0 ? 0 : i == Long.SIZE ? Long.MAX_VALUE : (1L << i) - 1;
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * Forgets every duration
+     */
+    void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            COUNTS.set(i, 0);
+        }
+        TOTAL.reset();
+    }
+}
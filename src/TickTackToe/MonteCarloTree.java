@@ -0,0 +1,322 @@
+package TickTackToe;
+
+import java.util.SplittableRandom;
+
+/**
+ * The search tree of one thread of a {@link MonteCarloTreeSearch}
+ * <br>
+ * Nodes live in primitive arrays and the children of a node take up a contiguous block of them,
+ * so iterations allocate nothing. Random playouts draw empty tiles from the free tiles the board keeps up to date
+ * with every move, which makes each pick O(1).
+ */
+final class MonteCarloTree {
+
+    // a node is expanded once it has been visited this many times
+    private static final int EXPANSION_VISITS = 2;
+
+    // value of a node whose children have not been created yet
+    private static final int UNEXPANDED = -1;
+
+    // the exploration constant of the UCT formula
+    private final double EXPLORATION;
+
+    // the move leading to each node
+    private int[] moves;
+
+    // the first child and number of children of each node
+    private int[] firstChildren;
+    private int[] childCounts;
+
+    // the number of playouts through each node and their results for the player who moved into it
+    private int[] visits;
+    private double[] wins;
+
+    // the number of nodes in use, the root is always node 0
+    private int size;
+
+    // the position at the root of the tree
+    private TickTackToe game;
+    private long rootHash;
+    private int rootTurn;
+
+    // the moves of the current iteration, and the nodes it went through
+    private int[] playedMoves;
+    private int[] path;
+
+    // the random source of the playouts
+    private final SplittableRandom RANDOM;
+
+    /**
+     * Creates an empty tree
+     * @param maxNodes the largest number of nodes the tree may hold
+     * @param exploration the exploration constant of the UCT formula
+     * @param random the random source of the playouts
+     */
+    MonteCarloTree(int maxNodes, double exploration, SplittableRandom random) {
+        this.moves = new int[maxNodes];
+        this.firstChildren = new int[maxNodes];
+        this.childCounts = new int[maxNodes];
+        this.visits = new int[maxNodes];
+        this.wins = new double[maxNodes];
+        this.EXPLORATION = exploration;
+        this.RANDOM = random;
+    }
+
+    /**
+     * Moves the root of the tree to the given position
+     * <br>
+     * When the position follows on from the current root, the subtree leading to it is kept
+     * and moved to the front of the arrays, otherwise the tree starts over
+     * @param state the new root position
+     */
+    void setRoot(TickTackToe state) {
+
+        int root = game != null && sameRules(game, state) ? findDescendant(state) : -1;
+
+        // starts a fresh copy of the position
+        game = new TickTackToe(state);
+        rootHash = game.getZobristHash();
+        rootTurn = game.turn;
+
+        if (root < 0) {
+            clear();
+        } else {
+            compact(root);
+        }
+
+        // makes room for the moves of the longest iteration
+        final int TILES = game.BOARD_WIDTH * game.BOARD_HEIGHT;
+        if (playedMoves == null || playedMoves.length != TILES) {
+            playedMoves = new int[TILES];
+            path = new int[TILES + 1];
+        }
+    }
+
+    /**
+     * Runs one iteration : walks down the tree, expands a leaf, plays a random game and records its result
+     * @return the depth the iteration walked down the tree
+     */
+    int iterate() {
+
+        final int ROOT_PLAYER = game.curPlayerTurn();
+        int node = 0;
+        int depth = 0;
+        int moveCount = 0;
+        path[0] = 0;
+
+        // walks down to a leaf, following the most promising children
+        while (childCounts[node] > 0 && game.winner() == game.EMPTY_TILE_KEY) {
+            node = selectChild(node);
+            game.makeMove(moves[node]);
+            playedMoves[moveCount++] = moves[node];
+            path[++depth] = node;
+        }
+
+        // grows the tree below leaves which have been visited often enough
+        if (childCounts[node] == UNEXPANDED && visits[node] + 1 >= EXPANSION_VISITS
+            && game.winner() == game.EMPTY_TILE_KEY && game.hasSpaceLeft() && expand(node)) {
+            node = firstChildren[node];
+            game.makeMove(moves[node]);
+            playedMoves[moveCount++] = moves[node];
+            path[++depth] = node;
+        }
+
+        // plays random moves until the game ends
+        while (game.winner() == game.EMPTY_TILE_KEY && game.hasSpaceLeft()) {
+            final int MOVE = game.randomFreeCell(RANDOM);
+            game.makeMove(MOVE);
+            playedMoves[moveCount++] = MOVE;
+        }
+        final int WINNER = game.winner();
+
+        // takes every move back
+        while (moveCount > 0) {
+            game.unmakeMove(playedMoves[--moveCount]);
+        }
+
+        // scores the game for the player who moved into each node
+        final int ROOT_OPPONENT = ROOT_PLAYER == game.PLAYER_X_KEY ? game.PLAYER_O_KEY : game.PLAYER_X_KEY;
+        for (int i = depth; i >= 0; i--) {
+            final int MOVER = (i & 1) == 1 ? ROOT_PLAYER : ROOT_OPPONENT;
+            visits[path[i]]++;
+            wins[path[i]] += WINNER == game.EMPTY_TILE_KEY ? 0.5 : WINNER == MOVER ? 1 : 0;
+        }
+
+        return depth;
+    }
+
+    /**
+     * Adds the visits of every child of the root to a per-move tally
+     * @param visitsByMove the number of visits of each move, indexed by move
+     * @param winsByMove the results of each move, indexed by move
+     */
+    void addRootStatistics(long[] visitsByMove, double[] winsByMove) {
+        for (int i = 0; i < childCounts[0]; i++) {
+            final int CHILD = firstChildren[0] + i;
+            visitsByMove[moves[CHILD]] += visits[CHILD];
+            winsByMove[moves[CHILD]] += wins[CHILD];
+        }
+    }
+
+    /**
+     * Picks the child with the best UCT value, trying unvisited children first
+     * @param node the parent node
+     * @return the chosen child
+     */
+    private int selectChild(int node) {
+
+        final int FIRST = firstChildren[node];
+        final int LAST = FIRST + childCounts[node];
+        final double LOG_VISITS = Math.log(visits[node]);
+
+        int bestChild = FIRST;
+        double bestValue = Double.NEGATIVE_INFINITY;
+        for (int child = FIRST; child < LAST; child++) {
+            // children are shuffled when created, so the first unvisited one is a random one
+            if (visits[child] == 0) {
+                return child;
+            }
+            final double VALUE = wins[child] / visits[child] + EXPLORATION * Math.sqrt(LOG_VISITS / visits[child]);
+            if (VALUE > bestValue) {
+                bestValue = VALUE;
+                bestChild = child;
+            }
+        }
+        return bestChild;
+    }
+
+    /**
+     * Creates a child for every empty tile of a leaf, in random order
+     * @param node the leaf to expand
+     * @return whether the tree had room for the children
+     */
+    private boolean expand(int node) {
+
+        // a full tree keeps its leaves as they are
+        final int FREE_CELLS = game.getFreeCellCount();
+        if (size + FREE_CELLS > moves.length) {
+            return false;
+        }
+
+        firstChildren[node] = size;
+        childCounts[node] = FREE_CELLS;
+        for (int i = 0; i < FREE_CELLS; i++) {
+            // shuffles the free tiles into the new block
+            final int SWAP = size + RANDOM.nextInt(i + 1);
+            moves[size + i] = moves[SWAP];
+            moves[SWAP] = game.getFreeCell(i);
+            childCounts[size + i] = UNEXPANDED;
+            visits[size + i] = 0;
+            wins[size + i] = 0;
+        }
+        size += FREE_CELLS;
+        return true;
+    }
+
+    /**
+     * Forgets the tree, the next root starting from scratch whatever the previous one was
+     */
+    void reset() {
+        game = null;
+        clear();
+    }
+
+    /**
+     * Empties the tree down to a single unexpanded root
+     */
+    private void clear() {
+        size = 1;
+        moves[0] = -1;
+        childCounts[0] = UNEXPANDED;
+        visits[0] = 0;
+        wins[0] = 0;
+    }
+
+    /**
+     * Looks for the node of the tree matching a later position of the game
+     * @param state the later position
+     * @return the node of the position, or -1 if the tree does not lead to it
+     */
+    private int findDescendant(TickTackToe state) {
+
+        if (state.turn < rootTurn) {
+            return -1;
+        }
+
+        int node = 0;
+        long hash = rootHash;
+        int player = game.curPlayerTurn();
+
+        // follows the children whose tile holds the right pawn in the later position
+        for (int turn = rootTurn; turn < state.turn; turn++) {
+            int next = -1;
+            for (int i = 0; i < Math.max(childCounts[node], 0); i++) {
+                final int CHILD = firstChildren[node] + i;
+                final int MOVE = moves[CHILD];
+                if (state.BOARD[state.moveY(MOVE)][state.moveX(MOVE)] == player
+                    && (next < 0 || visits[CHILD] > visits[next])) {
+                    next = CHILD;
+                }
+            }
+            if (next < 0) {
+                return -1;
+            }
+            hash ^= state.zobristKey(state.moveY(moves[next]), state.moveX(moves[next]), player);
+            player = player == state.PLAYER_X_KEY ? state.PLAYER_O_KEY : state.PLAYER_X_KEY;
+            node = next;
+        }
+
+        // the pawns played along the way must be exactly those of the later position
+        return hash == state.getZobristHash() ? node : -1;
+    }
+
+    /**
+     * Keeps only the subtree of a node, moving it to the front of the arrays with the node as the new root
+     * @param root the node becoming the root
+     */
+    private void compact(int root) {
+
+        // copies the subtree breadth first, so that each block of children stays contiguous
+        final int[] MOVES = new int[moves.length];
+        final int[] FIRST_CHILDREN = new int[moves.length];
+        final int[] CHILD_COUNTS = new int[moves.length];
+        final int[] VISITS = new int[moves.length];
+        final double[] WINS = new double[moves.length];
+        final int[] SOURCES = new int[moves.length];
+
+        SOURCES[0] = root;
+        int copied = 1;
+        for (int i = 0; i < copied; i++) {
+            final int SOURCE = SOURCES[i];
+            MOVES[i] = moves[SOURCE];
+            VISITS[i] = visits[SOURCE];
+            WINS[i] = wins[SOURCE];
+            CHILD_COUNTS[i] = childCounts[SOURCE];
+            if (childCounts[SOURCE] > 0) {
+                FIRST_CHILDREN[i] = copied;
+                for (int j = 0; j < childCounts[SOURCE]; j++) {
+                    SOURCES[copied++] = firstChildren[SOURCE] + j;
+                }
+            }
+        }
+
+        moves = MOVES;
+        firstChildren = FIRST_CHILDREN;
+        childCounts = CHILD_COUNTS;
+        visits = VISITS;
+        wins = WINS;
+        size = copied;
+    }
+
+    /**
+     * Determines whether two games are played on the same board with the same rules
+     * @param first the first game
+     * @param second the second game
+     * @return whether the games share their rules
+     */
+    private static boolean sameRules(TickTackToe first, TickTackToe second) {
+        return first.BOARD_WIDTH == second.BOARD_WIDTH && first.BOARD_HEIGHT == second.BOARD_HEIGHT
+            && first.WIN_LENGTH == second.WIN_LENGTH && first.EMPTY_TILE_KEY == second.EMPTY_TILE_KEY
+            && first.PLAYER_X_KEY == second.PLAYER_X_KEY && first.PLAYER_O_KEY == second.PLAYER_O_KEY;
+    }
+}
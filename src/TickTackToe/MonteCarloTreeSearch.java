@@ -0,0 +1,233 @@
+package TickTackToe;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * A Tick Tack Toe engine for large boards, running a Monte Carlo tree search (UCT)
+ * <br>
+ * Every thread grows its own tree from the root and the root statistics of all trees are added up to pick the
+ * move visited most. Trees are kept between calls, so a search starting from a position reached from the previous
+ * root carries on from the subtree leading to it.
+ * An engine must not be called from several threads at once
+ */
+public class MonteCarloTreeSearch {
+
+    // default exploration constant of the UCT formula
+    public static final double DEFAULT_EXPLORATION = Math.sqrt(2);
+
+    // the number of iterations between two looks at the clock
+    private static final int DEADLINE_CHECK_INTERVAL = 64;
+
+    // the tree of each thread
+    private final MonteCarloTree[] TREES;
+
+    // the threads growing the trees, created on the first parallel search
+    private ForkJoinPool pool;
+
+    /**
+     * Creates an engine searching on a single thread
+     * @param maxNodes the largest number of nodes the tree may hold
+     * @param seed the seed of the random playouts
+     */
+    public MonteCarloTreeSearch(int maxNodes, long seed) {
+        this(1, maxNodes, DEFAULT_EXPLORATION, seed);
+    }
+
+    /**
+     * Creates an engine searching on several threads, each with a tree of its own
+     * @param threads the number of threads searching at once
+     * @param maxNodes the largest number of nodes each tree may hold
+     * @param exploration the exploration constant of the UCT formula
+     * @param seed the seed of the random playouts
+     */
+    public MonteCarloTreeSearch(int threads, int maxNodes, double exploration, long seed) {
+
+        // if the engine has no thread to search with...
+        if (threads < 1) {
+            // throws an error
+            throw new IllegalArgumentException("Search needs at least 1 thread");
+        }
+
+        // if the trees cannot hold a root...
+        if (maxNodes < 1) {
+            // throws an error
+            throw new IllegalArgumentException("Trees need room for at least 1 node");
+        }
+
+        // gives each tree a random source of its own
+        final SplittableRandom RANDOM = new SplittableRandom(seed);
+        TREES = new MonteCarloTree[threads];
+        for (int i = 0; i < threads; i++) {
+            TREES[i] = new MonteCarloTree(maxNodes, exploration, RANDOM.split());
+        }
+    }
+
+    /**
+     * Forgets the trees, the next search starting from scratch rather than from the previous one
+     */
+    public void clear() {
+        for (MonteCarloTree tree : TREES) {
+            tree.reset();
+        }
+    }
+
+    /**
+     * Finds the best move after a fixed number of iterations
+     * @param state the game to find a move for
+     * @param iterations the number of iterations, shared between the threads
+     * @return the best move (see {@link Board#toMove(int, int)}), or -1 if the game is over
+     */
+    public int bestMove(TickTackToe state, long iterations) {
+        return search(state, iterations, SearchWorker.NO_DEADLINE).getMove();
+    }
+
+    /**
+     * Finds the best move the engine can within a time budget
+     * @param state the game to find a move for
+     * @param budget the time the search may take
+     * @return the best move (see {@link Board#toMove(int, int)}), or -1 if the game is over
+     */
+    public int bestMove(TickTackToe state, Duration budget) {
+        return search(state, budget).getMove();
+    }
+
+    /**
+     * Searches for a fixed number of iterations
+     * <br>
+     * The score of the result is the share of won playouts of the move, in thousandths, draws counting as half a win
+     * and the depth is the deepest any iteration walked down the trees
+     * @param state the game to find a move for
+     * @param iterations the number of iterations, shared between the threads
+     * @return the outcome of the search
+     */
+    public SearchResult search(TickTackToe state, long iterations) {
+        return search(state, iterations, SearchWorker.NO_DEADLINE);
+    }
+
+    /**
+     * Searches until the time budget runs out
+     * <br>
+     * The score of the result is the share of won playouts of the move, in thousandths, draws counting as half a win
+     * and the depth is the deepest any iteration walked down the trees
+     * @param state the game to find a move for
+     * @param budget the time the search may take
+     * @return the outcome of the search
+     */
+    public SearchResult search(TickTackToe state, Duration budget) {
+        return search(state, Long.MAX_VALUE, SearchWorker.deadlineAfter(budget));
+    }
+
+    /**
+     * Searches until either limit is reached
+     * @param state the game to find a move for
+     * @param iterations the number of iterations, shared between the threads
+     * @param deadline the System.nanoTime() past which the search stops
+     * @return the outcome of the search
+     */
+    private SearchResult search(TickTackToe state, long iterations, long deadline) {
+
+        // records the search for the flight recorder and metrics
+        final GameEvents.SearchEvent EVENT = new GameEvents.SearchEvent();
+        EVENT.begin();
+        final SearchResult RESULT = searchPosition(state, iterations, deadline);
+        GameEvents.searched(EVENT, "monte-carlo", RESULT, 0, 0);
+        return RESULT;
+    }
+
+    /**
+     * Searches until either limit is reached
+     * @param state the game to find a move for
+     * @param iterations the number of iterations, shared between the threads
+     * @param deadline the System.nanoTime() past which the search stops
+     * @return the outcome of the search
+     */
+    private SearchResult searchPosition(TickTackToe state, long iterations, long deadline) {
+
+        final long START = System.nanoTime();
+
+        // there is nothing to play once the game is over
+        if (state.winner() != state.EMPTY_TILE_KEY || !state.hasSpaceLeft()) {
+            return new SearchResult(-1, 0, 0, 0, System.nanoTime() - START);
+        }
+
+        // each thread runs its share of the iterations on its own tree
+        final long[] ITERATIONS = new long[TREES.length];
+        final int[] DEPTHS = new int[TREES.length];
+        if (TREES.length == 1) {
+            grow(0, state, iterations, deadline, ITERATIONS, DEPTHS);
+        } else {
+            if (pool == null) {
+                pool = new ForkJoinPool(TREES.length);
+            }
+            final List<ForkJoinTask<?>> TASKS = new ArrayList<>(TREES.length);
+            for (int i = 0; i < TREES.length; i++) {
+                final int TREE = i;
+                final long SHARE = iterations / TREES.length + (i < iterations % TREES.length ? 1 : 0);
+                TASKS.add(ForkJoinTask.adapt(() -> grow(TREE, state, SHARE, deadline, ITERATIONS, DEPTHS)));
+            }
+            pool.invoke(ForkJoinTask.adapt(() -> {
+                ForkJoinTask.invokeAll(TASKS);
+            }));
+        }
+
+        // adds up the root statistics of every tree
+        final int TILES = state.BOARD_WIDTH * state.BOARD_HEIGHT;
+        final long[] VISITS = new long[TILES];
+        final double[] WINS = new double[TILES];
+        long totalIterations = 0;
+        int depth = 0;
+        for (int i = 0; i < TREES.length; i++) {
+            TREES[i].addRootStatistics(VISITS, WINS);
+            totalIterations += ITERATIONS[i];
+            depth = Math.max(depth, DEPTHS[i]);
+        }
+
+        // plays the most visited move, falling back on the first empty tile if no move was visited
+        int bestMove = -1;
+        for (int move = 0; move < TILES; move++) {
+            if (state.BOARD[state.moveY(move)][state.moveX(move)] == state.EMPTY_TILE_KEY
+                && (bestMove < 0 || VISITS[move] > VISITS[bestMove])) {
+                bestMove = move;
+            }
+        }
+        final int SCORE = VISITS[bestMove] == 0 ? 0 : (int) Math.round(1000 * WINS[bestMove] / VISITS[bestMove]);
+
+        return new SearchResult(bestMove, SCORE, depth, totalIterations, System.nanoTime() - START);
+    }
+
+    /**
+     * Grows one tree from the given position
+     * @param tree the index of the tree
+     * @param state the root position
+     * @param iterations the number of iterations to run
+     * @param deadline the System.nanoTime() past which the tree stops growing
+     * @param iterationCounts receives the number of iterations run by each tree
+     * @param depths receives the deepest iteration of each tree
+     */
+    private void grow(int tree, TickTackToe state, long iterations, long deadline,
+                      long[] iterationCounts, int[] depths) {
+
+        final MonteCarloTree TREE = TREES[tree];
+        TREE.setRoot(state);
+
+        long iteration = 0;
+        int depth = 0;
+        while (iteration < iterations) {
+            // looks at the clock every so often
+            if (iteration % DEADLINE_CHECK_INTERVAL == 0
+                && deadline != SearchWorker.NO_DEADLINE && System.nanoTime() - deadline > 0) {
+                break;
+            }
+            depth = Math.max(depth, TREE.iterate());
+            iteration++;
+        }
+
+        iterationCounts[tree] = iteration;
+        depths[tree] = depth;
+    }
+}
@@ -0,0 +1,459 @@
+package TickTackToe;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * The moves to play in the first plies of games on a square board, read from a file on demand
+ * <br>
+ * Positions are reduced by {@link Symmetry} : the book holds one entry per class of equivalent positions, keyed by
+ * its canonical form, and the move of the canonical position is mapped back onto the position looked up.
+ * <br>
+ * The file holds a header, the entries sorted by key, then the first key of every page of entries :
+ * <ul>
+ *     <li>header : magic, version, dimension, win length, plies, number of entries and entries per page
+ *     <li>entry : the 8 byte key followed by the 1 byte canonical move
+ *     <li>index : the first key of each page, read when the book is opened
+ * </ul>
+ * Opening a book only reads its header and index, a page being read the first time a lookup lands in it
+ */
+public class OpeningBook implements Closeable {
+
+    // identifies opening book files : "TTOB"
+    private static final int MAGIC = 0x54544F42;
+    private static final int VERSION = 1;
+
+    // magic, version, dimension, win length, plies, entries and entries per page
+    private static final int HEADER_BYTES = 7 * Integer.BYTES;
+
+    // a key and a move
+    private static final int ENTRY_BYTES = Long.BYTES + Byte.BYTES;
+
+    // the entries of a page, about 4 KB of file
+    private static final int PAGE_ENTRIES = 455;
+
+    // keys of boards up to 5x5 pack both players' pawns as they are, larger ones mix them
+    private static final int PACKED_KEY_DIMENSIONS = 5;
+
+    // the board the book was built for
+    private final int BOARD_DIMENSIONS;
+    private final int WIN_LENGTH;
+
+    // the number of plies the book covers
+    private final int PLIES;
+
+    // the number of entries of the book
+    private final int ENTRIES;
+
+    // the rotations and reflections of the board
+    private final Symmetry SYMMETRY;
+
+    // the file the pages are read from
+    private final FileChannel CHANNEL;
+
+    // the first key of every page
+    private final long[] INDEX;
+
+    // the keys and moves of every page, null until the page is first read
+    private final long[][] PAGE_KEYS;
+    private final byte[][] PAGE_MOVES;
+
+    // the number of pages read so far
+    private int loadedPages = 0;
+
+    // receives the canonical pawns of player X then player O
+    private final long[] CANONICAL = new long[2];
+
+    /**
+     * Creates a lookup over an opened book file
+     * @param dimension the size of the board
+     * @param winLength the number of aligned pawns needed to win
+     * @param plies the number of plies the book covers
+     * @param entries the number of entries of the book
+     * @param channel the file the pages are read from
+     * @param index the first key of every page
+     */
+    private OpeningBook(int dimension, int winLength, int plies, int entries, FileChannel channel, long[] index) {
+        this.BOARD_DIMENSIONS = dimension;
+        this.WIN_LENGTH = winLength;
+        this.PLIES = plies;
+        this.ENTRIES = entries;
+        this.SYMMETRY = Symmetry.forDimension(dimension);
+        this.CHANNEL = channel;
+        this.INDEX = index;
+        this.PAGE_KEYS = new long[index.length][];
+        this.PAGE_MOVES = new byte[index.length][];
+    }
+
+    /**
+     * Builds the book of every position reached within a number of plies, then writes it to a file
+     * <br>
+     * Every move of either player is followed, so the book answers whatever the opponent plays.
+     * The policy picks the move stored for each position : an engine, a solver, or any other player
+     * @param dimension the size of the board
+     * @param winLength the number of aligned pawns needed to win
+     * @param plies the number of plies to cover, positions with this many pawns or more being left out
+     * @param policy chooses the move of every position of the book
+     * @param seed the seed of the random source handed to the policy
+     * @param file the file to write, replaced in one go once the book is complete
+     * @throws IOException if the file could not be written
+     */
+    public static void build(int dimension, int winLength, int plies, PlayerPolicy policy, long seed, Path file)
+            throws IOException {
+
+        // if the book would not cover a single position...
+        if (plies < 1) {
+            // throws an error
+            throw new IllegalArgumentException("Book must cover at least 1 ply");
+        }
+
+        final Symmetry SYMMETRY = Symmetry.forDimension(dimension);
+        final SplittableRandom RANDOM = new SplittableRandom(seed);
+        final long[] CANONICAL = new long[2];
+
+        // the book moves by key, and the positions of the ply being expanded
+        final Map<Long, Integer> MOVES = new HashMap<>();
+        List<TickTackToe> positions = new ArrayList<>();
+        positions.add(new TickTackToe(dimension, dimension, winLength, GameSessions.EMPTY_TILE_KEY,
+                                      GameSessions.PLAYER_O_KEY, GameSessions.PLAYER_X_KEY));
+
+        for (int ply = 0; ply < plies && !positions.isEmpty(); ply++) {
+
+            // asks the policy for the move of every position of the ply
+            for (TickTackToe game : positions) {
+                final int TRANSFORM = canonicalise(SYMMETRY, game, CANONICAL);
+                final int MOVE = policy.chooseMove(game, RANDOM);
+
+                // if the policy did not pick a free tile...
+                if (MOVE < 0 || MOVE >= dimension * dimension || !game.isPlayableTile(game.moveY(MOVE),
+                                                                                      game.moveX(MOVE))) {
+                    // throws an error
+                    throw new IllegalArgumentException(String.format("Policy chose the unplayable move %s", MOVE));
+                }
+                MOVES.put(key(dimension, CANONICAL), SYMMETRY.transformMove(MOVE, TRANSFORM));
+            }
+
+            // the positions of the next ply are only needed if the book covers it
+            if (ply + 1 == plies) {
+                break;
+            }
+
+            // follows every move of every position, keeping one position per class
+            final List<TickTackToe> NEXT = new ArrayList<>();
+            final Set<Long> SEEN = new HashSet<>();
+            for (TickTackToe game : positions) {
+                for (int move = 0; move < dimension * dimension; move++) {
+                    if (!game.isPlayableTile(game.moveY(move), game.moveX(move))) {
+                        continue;
+                    }
+                    final TickTackToe CHILD = new TickTackToe(game);
+                    CHILD.makeMove(move);
+
+                    // finished games have no move to store
+                    if (CHILD.winner() != CHILD.EMPTY_TILE_KEY || !CHILD.hasSpaceLeft()) {
+                        continue;
+                    }
+                    canonicalise(SYMMETRY, CHILD, CANONICAL);
+                    if (SEEN.add(key(dimension, CANONICAL))) {
+                        NEXT.add(CHILD);
+                    }
+                }
+            }
+            positions = NEXT;
+        }
+
+        // sorts the entries by key
+        final long[] KEYS = new long[MOVES.size()];
+        int count = 0;
+        for (long key : MOVES.keySet()) {
+            KEYS[count++] = key;
+        }
+        Arrays.sort(KEYS);
+
+        // writes next to the file, then replaces it in one go
+        final Path TEMPORARY = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(TEMPORARY, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                    StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            final ByteBuffer BUFFER = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+            BUFFER.putInt(MAGIC).putInt(VERSION).putInt(dimension).putInt(winLength).putInt(plies)
+                  .putInt(KEYS.length).putInt(PAGE_ENTRIES);
+
+            for (long key : KEYS) {
+                if (BUFFER.remaining() < ENTRY_BYTES) {
+                    write(channel, BUFFER);
+                }
+                BUFFER.putLong(key).put((byte) (int) MOVES.get(key));
+            }
+
+            // the index holds the first key of every page
+            for (int i = 0; i < KEYS.length; i += PAGE_ENTRIES) {
+                if (BUFFER.remaining() < Long.BYTES) {
+                    write(channel, BUFFER);
+                }
+                BUFFER.putLong(KEYS[i]);
+            }
+            write(channel, BUFFER);
+        }
+        Files.move(TEMPORARY, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Opens a book file, reading only its header and index
+     * @param file the file written by {@link #build(int, int, int, PlayerPolicy, long, Path)}
+     * @return the lookup over the file, which keeps it open until closed
+     * @throws IOException if the file could not be read or is not an opening book
+     */
+    public static OpeningBook open(Path file) throws IOException {
+
+        final FileChannel CHANNEL = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            // checks the header
+            final ByteBuffer HEADER = read(CHANNEL, 0, HEADER_BYTES);
+            if (HEADER.remaining() < HEADER_BYTES || HEADER.getInt() != MAGIC || HEADER.getInt() != VERSION) {
+                throw new IOException(String.format("%s is not an opening book", file));
+            }
+            final int DIMENSION = HEADER.getInt();
+            final int WIN_LENGTH = HEADER.getInt();
+            final int PLIES = HEADER.getInt();
+            final int ENTRIES = HEADER.getInt();
+            final int PAGE_SIZE = HEADER.getInt();
+            if (DIMENSION < 1 || DIMENSION > BitBoard.MAX_PACKED_DIMENSIONS || ENTRIES < 0
+                || PAGE_SIZE != PAGE_ENTRIES) {
+                throw new IOException(String.format("%s has an invalid header", file));
+            }
+
+            // reads the index, past the entries
+            final int PAGES = (ENTRIES + PAGE_ENTRIES - 1) / PAGE_ENTRIES;
+            final long INDEX_START = HEADER_BYTES + (long) ENTRIES * ENTRY_BYTES;
+            if (CHANNEL.size() != INDEX_START + (long) PAGES * Long.BYTES) {
+                throw new IOException(String.format("%s is truncated", file));
+            }
+            final ByteBuffer INDEX_BYTES = read(CHANNEL, INDEX_START, PAGES * Long.BYTES);
+            final long[] INDEX = new long[PAGES];
+            for (int i = 0; i < PAGES; i++) {
+                INDEX[i] = INDEX_BYTES.getLong();
+            }
+
+            return new OpeningBook(DIMENSION, WIN_LENGTH, PLIES, ENTRIES, CHANNEL, INDEX);
+        } catch (IOException | RuntimeException e) {
+            CHANNEL.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Gets the board dimensions
+     * @return the board dimensions
+     */
+    public int getBOARD_DIMENSIONS() {
+        return BOARD_DIMENSIONS;
+    }
+
+    /**
+     * Gets the number of aligned pawns needed to win
+     * @return the win length
+     */
+    public int getWIN_LENGTH() {
+        return WIN_LENGTH;
+    }
+
+    /**
+     * Gets the number of plies the book covers
+     * @return the number of plies
+     */
+    public int getPLIES() {
+        return PLIES;
+    }
+
+    /**
+     * Gets the number of positions of the book
+     * @return the number of entries
+     */
+    public int getEntries() {
+        return ENTRIES;
+    }
+
+    /**
+     * Gets the number of pages read from the file so far
+     * @return the number of loaded pages
+     */
+    public synchronized int getLoadedPages() {
+        return loadedPages;
+    }
+
+    /**
+     * Looks up the book move of a position
+     * <br>
+     * Lookups may come from several threads, the first one landing in a page reading it for every other
+     * @param game the position, left unchanged
+     * @return the book move (see {@link Board#toMove(int, int)}), or -1 if the position is not in the book
+     * @throws UncheckedIOException if a page could not be read
+     */
+    public synchronized int probe(TickTackToe game) {
+
+        // positions of other games or past the book's plies are never in it
+        if (game.getBOARD_WIDTH() != BOARD_DIMENSIONS || game.getBOARD_HEIGHT() != BOARD_DIMENSIONS
+            || game.WIN_LENGTH != WIN_LENGTH || game.turn >= PLIES || INDEX.length == 0) {
+            return -1;
+        }
+
+        final int TRANSFORM = canonicalise(SYMMETRY, game, CANONICAL);
+        final long KEY = key(BOARD_DIMENSIONS, CANONICAL);
+
+        // finds the last page starting at or before the key
+        int page = Arrays.binarySearch(INDEX, KEY);
+        if (page < 0) {
+            page = -page - 2;
+            if (page < 0) {
+                return -1;
+            }
+        }
+
+        // finds the entry within the page
+        final long[] KEYS = page(page);
+        final int ENTRY = Arrays.binarySearch(KEYS, KEY);
+        if (ENTRY < 0) {
+            return -1;
+        }
+
+        // maps the canonical move back, and makes sure a mixed key did not land on another position
+        final int MOVE = SYMMETRY.inverseMove(PAGE_MOVES[page][ENTRY], TRANSFORM);
+        return game.isPlayableTile(game.moveY(MOVE), game.moveX(MOVE)) ? MOVE : -1;
+    }
+
+    /**
+     * Closes the book file
+     * @throws IOException if the file could not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        CHANNEL.close();
+    }
+
+    /**
+     * Gets the keys of a page, reading the page if it was never read
+     * @param page the index of the page
+     * @return the keys of the page
+     */
+    private long[] page(int page) {
+
+        if (PAGE_KEYS[page] != null) {
+            return PAGE_KEYS[page];
+        }
+
+        // reads the whole page at once
+        final int FIRST = page * PAGE_ENTRIES;
+        final int COUNT = Math.min(PAGE_ENTRIES, ENTRIES - FIRST);
+        final ByteBuffer BYTES;
+        try {
+            BYTES = read(CHANNEL, HEADER_BYTES + (long) FIRST * ENTRY_BYTES, COUNT * ENTRY_BYTES);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        final long[] KEYS = new long[COUNT];
+        final byte[] MOVES = new byte[COUNT];
+        for (int i = 0; i < COUNT; i++) {
+            KEYS[i] = BYTES.getLong();
+            MOVES[i] = BYTES.get();
+        }
+
+        PAGE_MOVES[page] = MOVES;
+        PAGE_KEYS[page] = KEYS;
+        loadedPages++;
+        return KEYS;
+    }
+
+    /**
+     * Finds the canonical form of a position
+     * @param symmetry the symmetries of the board
+     * @param game the position
+     * @param canonical receives the canonical pawns of player X then player O
+     * @return the transform which maps the position onto its canonical form
+     */
+    private static int canonicalise(Symmetry symmetry, TickTackToe game, long[] canonical) {
+
+        // packs the pawns of both players, one bit per tile
+        long xBits = 0;
+        long oBits = 0;
+        for (int move = 0; move < game.getBOARD_WIDTH() * game.getBOARD_HEIGHT(); move++) {
+            final int TILE = game.getTile(game.moveY(move), game.moveX(move));
+            if (TILE == game.PLAYER_X_KEY) {
+                xBits |= 1L << move;
+            } else if (TILE == game.PLAYER_O_KEY) {
+                oBits |= 1L << move;
+            }
+        }
+
+        return symmetry.canonicalise(xBits, oBits, canonical);
+    }
+
+    /**
+     * Computes the key of a canonical position
+     * @param dimension the size of the board
+     * @param canonical the canonical pawns of player X then player O
+     * @return the key of the position
+     */
+    private static long key(int dimension, long[] canonical) {
+
+        // boards up to 5x5 fit both players in the key as they are
+        if (dimension <= PACKED_KEY_DIMENSIONS) {
+            return Symmetry.packedKey(canonical[0], canonical[1]);
+        }
+
+        // larger ones mix them, which leaves a negligible chance of two positions sharing a key
+        final long MIXED = canonical[0] * 0x9E37_79B9_7F4A_7C15L ^ Long.rotateLeft(canonical[1], 29);
+        return (MIXED ^ MIXED >>> 32) * 0xC2B2_AE3D_27D4_EB4FL ^ canonical[1];
+    }
+
+    /**
+     * Reads a range of a file
+     * @param channel the file
+     * @param position where the range starts
+     * @param bytes the length of the range
+     * @return the bytes read, ready to be read, fewer than asked if the file ends first
+     * @throws IOException if the file could not be read
+     */
+    private static ByteBuffer read(FileChannel channel, long position, int bytes) throws IOException {
+
+        final ByteBuffer BUFFER = ByteBuffer.allocate(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        while (BUFFER.hasRemaining()) {
+            // stops short if the file ends within the range
+            if (channel.read(BUFFER, position + BUFFER.position()) < 0) {
+                break;
+            }
+        }
+        return BUFFER.flip();
+    }
+
+    /**
+     * Writes a buffer to a channel, leaving it empty
+     * @param channel the channel
+     * @param buffer the buffer to write
+     * @throws IOException if the buffer could not be written
+     */
+    private static void write(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,364 @@
+package TickTackToe;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Represents a Tick Tack Toe Board stored off-heap at 2 bits per tile
+ * <br>
+ * Tiles live in a single direct buffer, four per byte and each row starting on a new byte, so a board takes up
+ * 16 times less memory than an int[][] board and adds no arrays for the garbage collector to trace.
+ * Tiles hold 0 when empty, 1 for player X and 2 for player O, and are converted back to the board's keys when read.
+ * Coordinates are checked once per call rather than by catching {@link IndexOutOfBoundsException}
+ */
+public class PackedBoard {
+
+    // the largest number of bytes a direct buffer can hold
+    private static final long MAX_BYTES = Integer.MAX_VALUE;
+
+    // the codes of the tiles
+    private static final int EMPTY = 0;
+    private static final int PLAYER_X = 1;
+    private static final int PLAYER_O = 2;
+
+    // the integers which represent the tiles on the board
+    protected final int EMPTY_TILE_KEY;
+    protected final int PLAYER_O_KEY;
+    protected final int PLAYER_X_KEY;
+
+    // the number of columns and rows of the board
+    protected final int BOARD_WIDTH;
+    protected final int BOARD_HEIGHT;
+
+    // the number of aligned pawns a player needs to win
+    protected final int WIN_LENGTH;
+
+    // the number of bytes of each row
+    private final int ROW_BYTES;
+
+    // the key of each tile code
+    private final int[] KEYS = new int[4];
+
+    // the tiles, row by row
+    private final ByteBuffer CELLS;
+
+    // the number of pawns on the board
+    private long pawns = 0;
+
+    // the current turn
+    // player X plays on even turns
+    // player O plays on odd turns
+    protected long turn = 0;
+
+    // the first player to align WIN_LENGTH pawns, or the empty tile key while no player has
+    private int winner;
+
+    /**
+     * Creates an empty packed board
+     * <br>
+     * Valid Key Combination :
+     * <br>
+     * {empty tile key, player O key, player X key}
+     * <ul>
+     *      <li>-1, 0, 1
+     *      <li>0, -1, 1
+     *      <li>0, 1, -1
+     * </ul>
+     * @param width the number of columns of the board
+     * @param height the number of rows of the board
+     * @param winLength the number of aligned pawns needed to win
+     * @param EMPTY_TILE_KEY integer representing empty tiles in the board
+     * @param PLAYER_O_KEY integer representing player O in the board
+     * @param PLAYER_X_KEY integer representing player X in the board
+     */
+    public PackedBoard(int width, int height, int winLength, int EMPTY_TILE_KEY, int PLAYER_O_KEY, int PLAYER_X_KEY) {
+
+        // if the board is empty or too large for a single buffer...
+        if (width < 1 || height < 1 || (long) (width + 3 >> 2) * height > MAX_BYTES) {
+            // throws an error
+            throw new IllegalArgumentException(String.format("Packed boards hold between 1 and %s tiles",
+                                                             4 * MAX_BYTES));
+        }
+
+        // if no line of the board is long enough to win...
+        if (winLength < 1 || winLength > Math.max(width, height)) {
+            // throws an error
+            throw new IllegalArgumentException(String.format("Win length must be comprised between 1 and %s",
+                                                             Math.max(width, height)));
+        }
+
+        // if the player and empty tile keys the same...
+        if (PLAYER_X_KEY == PLAYER_O_KEY || PLAYER_X_KEY == EMPTY_TILE_KEY || PLAYER_O_KEY == EMPTY_TILE_KEY) {
+            // throws an error
+            throw new IllegalArgumentException("Player and empty tile keys cannot be identical");
+        }
+
+        this.BOARD_WIDTH = width;
+        this.BOARD_HEIGHT = height;
+        this.WIN_LENGTH = winLength;
+        this.EMPTY_TILE_KEY = EMPTY_TILE_KEY;
+        this.PLAYER_O_KEY = PLAYER_O_KEY;
+        this.PLAYER_X_KEY = PLAYER_X_KEY;
+        this.winner = EMPTY_TILE_KEY;
+
+        KEYS[EMPTY] = EMPTY_TILE_KEY;
+        KEYS[PLAYER_X] = PLAYER_X_KEY;
+        KEYS[PLAYER_O] = PLAYER_O_KEY;
+        KEYS[3] = EMPTY_TILE_KEY;
+
+        // a direct buffer starts out zeroed, which is an empty board
+        this.ROW_BYTES = width + 3 >> 2;
+        this.CELLS = ByteBuffer.allocateDirect(ROW_BYTES * height);
+    }
+
+    /**
+     * Gets the board width
+     * @return the number of columns of the board
+     */
+    public int getBOARD_WIDTH() {
+        return BOARD_WIDTH;
+    }
+
+    /**
+     * Gets the board height
+     * @return the number of rows of the board
+     */
+    public int getBOARD_HEIGHT() {
+        return BOARD_HEIGHT;
+    }
+
+    /**
+     * Gets the off-heap memory used by the tiles
+     * @return the size of the tiles, in bytes
+     */
+    public long getMemoryBytes() {
+        return CELLS.capacity();
+    }
+
+    /**
+     * Determines whose player it is the turn to play
+     * @return the key of the player whose turn it is to play
+     */
+    int curPlayerTurn() {
+        return turn % 2 == 0 ? PLAYER_X_KEY : PLAYER_O_KEY;
+    }
+
+    /**
+     * Allows the player whose turn it is to place a pawn on the board
+     * <br>
+     * Taken tiles, tiles outside the board and every move once the game is won are ignored
+     * @param x the x-coordinates of the pawn
+     * @param y the y-coordinates of the pawn
+     */
+    public void play(int x, int y) {
+        // if the game goes on and the tile is empty...
+        if (winner == EMPTY_TILE_KEY && isPlayableTile(y, x)) {
+            // places the corresponding player tile and moves on to the next turn
+            play(y, x, curPlayerTurn());
+            turn++;
+        }
+    }
+
+    /**
+     * Places a pawn on the specified tile
+     * @param y y-coordinates of the pawn
+     * @param x x-coordinates of the pawn
+     * @param pawn integer to represent the pawn on the board
+     */
+    void play(int y, int x, int pawn) {
+
+        checkBounds(y, x);
+
+        // the pawn must be one of the board's keys
+        if (pawn != EMPTY_TILE_KEY && pawn != PLAYER_O_KEY && pawn != PLAYER_X_KEY) {
+            throw new IllegalArgumentException("Specified tile is invalid");
+        }
+
+        // overwrites the tile's 2 bits
+        final int CODE = pawn == PLAYER_X_KEY ? PLAYER_X : pawn == PLAYER_O_KEY ? PLAYER_O : EMPTY;
+        final int INDEX = y * ROW_BYTES + (x >> 2);
+        final int SHIFT = 2 * (x & 3);
+        final int BYTE = CELLS.get(INDEX);
+        final int PREVIOUS = BYTE >>> SHIFT & 3;
+        CELLS.put(INDEX, (byte) (BYTE & ~(3 << SHIFT) | CODE << SHIFT));
+
+        // keeps the count of pawns and the winner up to date
+        pawns += (CODE != EMPTY ? 1 : 0) - (PREVIOUS != EMPTY ? 1 : 0);
+        if (PREVIOUS != EMPTY && KEYS[PREVIOUS] == winner) {
+            // the removed pawn may have belonged to the winning line
+            winner = findWinner();
+        } else if (CODE != EMPTY && winner == EMPTY_TILE_KEY && completesLine(y, x, pawn)) {
+            winner = pawn;
+        }
+    }
+
+    /**
+     * Gets the specified tile
+     * @param y the y-coordinate of the tile
+     * @param x the x-coordinate of the tile
+     * @return the tile
+     */
+    int getTile(int y, int x) {
+        checkBounds(y, x);
+        return KEYS[code(y, x)];
+    }
+
+    /**
+     * Gets a copy of the entire specified row
+     * @param y the y-coordinate of the row
+     * @return the row
+     */
+    int[] getRow(int y) {
+        final int[] ROW = new int[BOARD_WIDTH];
+        getRow(y, ROW);
+        return ROW;
+    }
+
+    /**
+     * Copies the entire specified row into an array, checking the coordinates once for the whole row
+     * @param y the y-coordinate of the row
+     * @param dst receives the tiles of the row, from index 0
+     */
+    public void getRow(int y, int[] dst) {
+
+        // if the row is not on the board or does not fit...
+        if (y < 0 || y >= BOARD_HEIGHT || dst.length < BOARD_WIDTH) {
+            // throws an error
+            throw new IllegalArgumentException(String.format("Row must be comprised between 0 and %s "
+                                                             + "and fit in %s tiles", BOARD_HEIGHT - 1, BOARD_WIDTH));
+        }
+
+        // unpacks 4 tiles per byte
+        final int START = y * ROW_BYTES;
+        for (int i = 0, x = 0; i < ROW_BYTES; i++) {
+            final int BYTE = CELLS.get(START + i);
+            for (int shift = 0; shift < 8 && x < BOARD_WIDTH; shift += 2, x++) {
+                dst[x] = KEYS[BYTE >>> shift & 3];
+            }
+        }
+    }
+
+    /**
+     * Determines whether a tile on the board is playable (i.e. :if it is empty)
+     * @param y the y-coordinates of the tile
+     * @param x the x-coordinates of the tile
+     * @return whether the tile is playable
+     */
+    public boolean isPlayableTile(int y, int x) {
+        // tiles outside the board are unplayable
+        return y >= 0 && y < BOARD_HEIGHT && x >= 0 && x < BOARD_WIDTH && code(y, x) == EMPTY;
+    }
+
+    /**
+     * Checks the board for any empty tiles
+     * @return whether the board still has empty tiles
+     */
+    boolean hasSpaceLeft() {
+        return pawns < (long) BOARD_WIDTH * BOARD_HEIGHT;
+    }
+
+    /**
+     * Checks for win conditions for both players
+     * <br>
+     * The answer is kept up to date as pawns are placed and costs no scan of the board
+     * <ul>
+     *     <li>EMPTY_TILE_KEY : no player has won
+     *     <li>PLAYER_O_KEY : player O has won
+     *     <li>PLAYER_X_KEY : player X has won
+     * </ul>
+     * @return which player has won or if none has won
+     */
+    public int winingPlayer() {
+        return winner;
+    }
+
+    /**
+     * Determines whether placing a pawn would give its player WIN_LENGTH aligned pawns
+     * @param y the y-coordinates of the tile
+     * @param x the x-coordinates of the tile
+     * @param pawn the player placing the pawn
+     * @return whether the pawn would complete a line
+     */
+    boolean completesLine(int y, int x, int pawn) {
+        final int CODE = pawn == PLAYER_X_KEY ? PLAYER_X : PLAYER_O;
+        return runLength(y, x, 0, 1, CODE) >= WIN_LENGTH
+            || runLength(y, x, 1, 0, CODE) >= WIN_LENGTH
+            || runLength(y, x, 1, 1, CODE) >= WIN_LENGTH
+            || runLength(y, x, 1, -1, CODE) >= WIN_LENGTH;
+    }
+
+    /**
+     * Measures the run of pawns a tile would belong to along one direction
+     * <br>
+     * The run is never followed further than WIN_LENGTH - 1 tiles on either side
+     * @param y the y-coordinates of the tile
+     * @param x the x-coordinates of the tile
+     * @param dy the vertical step of the direction
+     * @param dx the horizontal step of the direction
+     * @param code the code of the player owning the run
+     * @return the length of the run, including the tile itself
+     */
+    private int runLength(int y, int x, int dy, int dx, int code) {
+
+        int length = 1;
+
+        // follows the run forwards...
+        for (int i = 1, curY = y + dy, curX = x + dx; i < WIN_LENGTH; i++, curY += dy, curX += dx) {
+            if (curY < 0 || curY >= BOARD_HEIGHT || curX < 0 || curX >= BOARD_WIDTH || code(curY, curX) != code) {
+                break;
+            }
+            length++;
+        }
+
+        // ...then backwards
+        for (int i = 1, curY = y - dy, curX = x - dx; i < WIN_LENGTH; i++, curY -= dy, curX -= dx) {
+            if (curY < 0 || curY >= BOARD_HEIGHT || curX < 0 || curX >= BOARD_WIDTH || code(curY, curX) != code) {
+                break;
+            }
+            length++;
+        }
+
+        return length;
+    }
+
+    /**
+     * Looks through every tile for a winning line, once a pawn of the winner was removed
+     * @return the player owning a winning line, or the empty tile key if there is none
+     */
+    private int findWinner() {
+        for (int y = 0; y < BOARD_HEIGHT; y++) {
+            for (int x = 0; x < BOARD_WIDTH; x++) {
+                final int CODE = code(y, x);
+                if (CODE != EMPTY && completesLine(y, x, KEYS[CODE])) {
+                    return KEYS[CODE];
+                }
+            }
+        }
+        return EMPTY_TILE_KEY;
+    }
+
+    /**
+     * Reads the code of a tile known to be on the board
+     * @param y the y-coordinate of the tile
+     * @param x the x-coordinate of the tile
+     * @return the code of the tile
+     */
+    private int code(int y, int x) {
+        return CELLS.get(y * ROW_BYTES + (x >> 2)) >>> 2 * (x & 3) & 3;
+    }
+
+    /**
+     * Checks that a tile is on the board
+     * @param y the y-coordinate of the tile
+     * @param x the x-coordinate of the tile
+     */
+    private void checkBounds(int y, int x) {
+
+        // if the coordinates are invalid...
+        if (y < 0 || y >= BOARD_HEIGHT || x < 0 || x >= BOARD_WIDTH) {
+            // warns the user that the x and y arguments are invalid
+            throw new IllegalArgumentException(String.format("x and y coordinates of pawn must be comprised "
+                                                             + "between 0 and %s and 0 and %s",
+                                                             BOARD_WIDTH - 1, BOARD_HEIGHT - 1));
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package TickTackToe;
+
+import java.util.SplittableRandom;
+
+/**
+ * Chooses the moves of a simulated player
+ * <br>
+ * A policy is only ever used by one thread, simulators create one per thread
+ */
+public interface PlayerPolicy {
+
+    /**
+     * Chooses a move
+     * @param game the position to play in, which the policy must leave unchanged
+     * @param random the random source of the thread
+     * @return the move to play (see {@link Board#toMove(int, int)})
+     */
+    int chooseMove(TickTackToe game, SplittableRandom random);
+}
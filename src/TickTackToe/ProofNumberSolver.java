@@ -0,0 +1,632 @@
+package TickTackToe;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+
+/**
+ * Solves positions with depth-first proof-number search (df-pn)
+ * <br>
+ * A proof asks whether one player, the attacker, can force a win : positions where the attacker moves are OR nodes,
+ * the others AND nodes, and draws count as failures. A position is solved by trying to prove a win for the player
+ * to move, then for the opponent, a draw being what is left when neither succeeds.
+ * <br>
+ * Proof and disproof numbers live in a fixed-size table of primitive arrays, grouped by buckets of four entries.
+ * Each entry remembers how many nodes its search took, and a full bucket gives up its cheapest entry.
+ * Once a position is solved, the entries of its children are removed, since the position's own entry
+ * now answers for its whole subtree.
+ * <br>
+ * Long solves can write the table to a checkpoint file at regular intervals, and carry on from it in a later
+ * process : df-pn restarts from the root, and the table takes it straight back to where it left off
+ */
+public class ProofNumberSolver {
+
+    // results of a proof
+    public static final int UNKNOWN = 0;
+    public static final int PROVEN = 1;
+    public static final int DISPROVEN = 2;
+
+    // proof and disproof numbers of solved positions
+    private static final int INFINITY = Integer.MAX_VALUE / 2;
+
+    // the number of entries of a bucket
+    private static final int BUCKET_SIZE = 4;
+
+    // the size of an entry : a key, both numbers and the work
+    private static final int ENTRY_BYTES = Long.BYTES + 3 * Integer.BYTES;
+
+    // the largest number of entries arrays can hold
+    private static final int MAX_ENTRIES = 1 << 28;
+
+    // identifies checkpoint files : "TTPN"
+    private static final int MAGIC = 0x5454504E;
+    private static final int VERSION = 1;
+
+    // magic, version, width, height, win length, the keys, then the number of entries and the nodes searched
+    private static final int HEADER_BYTES = 8 * Integer.BYTES + 2 * Long.BYTES;
+
+    // the nodes searched between two looks at the clock
+    private static final int CLOCK_INTERVAL = 1 << 14;
+
+    // distinguishes the entries of both attackers, which share the table
+    private static final long PLAYER_X_ATTACKS = 0x7A5F_3C1D_9E2B_4861L;
+    private static final long PLAYER_O_ATTACKS = 0x1D6E_8B3A_F04C_2597L;
+
+    // the hashes, proof numbers, disproof numbers and work of every entry
+    // an entry is unused while its work is 0
+    private final long[] KEYS;
+    private final int[] PROOFS;
+    private final int[] DISPROOFS;
+    private final int[] WORK;
+
+    // maps a hash onto its bucket
+    private final int BUCKET_MASK;
+
+    // the moves of each ply, reused across the search
+    private int[][] moveBuffers = new int[0][];
+
+    // the player trying to win the current proof
+    private int attacker;
+
+    // the nodes searched since the solver was created, or since the checkpoint it resumed from
+    private long nodes = 0;
+
+    // the search gives up after this many nodes, or once this System.nanoTime() is reached
+    private long nodeLimit;
+    private long deadline;
+    private boolean stopped;
+
+    // where and how often to write checkpoints, and when the last one was written
+    private Path checkpointFile;
+    private long checkpointNanos;
+    private long lastCheckpoint;
+
+    // the rules of the positions in the table, checked when writing and reading checkpoints
+    private int boardWidth;
+    private int boardHeight;
+    private int winLength;
+    private int[] boardKeys;
+
+    /**
+     * Creates a solver whose table never takes up more than the given amount of memory
+     * @param maxBytes the memory the table may use, in bytes
+     */
+    public ProofNumberSolver(long maxBytes) {
+
+        // if the table cannot even hold a single bucket...
+        if (maxBytes < BUCKET_SIZE * ENTRY_BYTES) {
+            // throws an error
+            throw new IllegalArgumentException(String.format("Table needs at least %s bytes",
+                                                             BUCKET_SIZE * ENTRY_BYTES));
+        }
+
+        // uses the largest power of two of entries fitting in memory
+        final int ENTRIES = (int) Long.highestOneBit(Math.min(maxBytes / ENTRY_BYTES, MAX_ENTRIES));
+        KEYS = new long[ENTRIES];
+        PROOFS = new int[ENTRIES];
+        DISPROOFS = new int[ENTRIES];
+        WORK = new int[ENTRIES];
+        BUCKET_MASK = ENTRIES / BUCKET_SIZE - 1;
+    }
+
+    /**
+     * Writes the table to a file every so often while solving, replacing the previous checkpoint
+     * <br>
+     * Each checkpoint is written next to the file then moved over it, so a crash never leaves a torn checkpoint
+     * @param file the checkpoint file, or null to stop writing checkpoints
+     * @param interval the time between two checkpoints
+     */
+    public void setCheckpoint(Path file, Duration interval) {
+        this.checkpointFile = file;
+        this.checkpointNanos = interval.toNanos();
+        this.lastCheckpoint = System.nanoTime();
+    }
+
+    /**
+     * Gets the number of nodes searched, including those of the checkpoint the solver resumed from
+     * @return the number of nodes
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Gets the number of positions the table can hold
+     * @return the capacity of the table
+     */
+    public int getCapacity() {
+        return KEYS.length;
+    }
+
+    /**
+     * Solves a position for the player to move
+     * @param game the position to solve, left unchanged
+     * @param maxNodes the largest number of nodes to search, shared by both proofs
+     * @param timeLimit the longest time to search
+     * @return {@link Tablebase#WIN}, {@link Tablebase#LOSS}, {@link Tablebase#DRAW},
+     *         or {@link #UNKNOWN} if the search ran out of nodes or time
+     */
+    public int solve(TickTackToe game, long maxNodes, Duration timeLimit) {
+
+        final long DEADLINE = SearchWorker.deadlineAfter(timeLimit);
+        final int PLAYER = game.curPlayerTurn();
+        final int OPPONENT = PLAYER == game.PLAYER_X_KEY ? game.PLAYER_O_KEY : game.PLAYER_X_KEY;
+
+        // a win for the player to move...
+        final long START_NODES = nodes;
+        final int WIN = prove(game, PLAYER, maxNodes, DEADLINE);
+        if (WIN == PROVEN) {
+            return Tablebase.WIN;
+        }
+        if (WIN == UNKNOWN) {
+            return UNKNOWN;
+        }
+
+        // ...else a win for the opponent, else a draw, with the nodes the first proof left
+        final int LOSS = prove(game, OPPONENT, maxNodes - (nodes - START_NODES), DEADLINE);
+        return LOSS == PROVEN ? Tablebase.LOSS : LOSS == DISPROVEN ? Tablebase.DRAW : UNKNOWN;
+    }
+
+    /**
+     * Tries to prove that a player can force a win
+     * @param game the position, left unchanged
+     * @param attacker the key of the player trying to win
+     * @param maxNodes the largest number of nodes to search
+     * @param timeLimit the longest time to search
+     * @return {@link #PROVEN}, {@link #DISPROVEN} if the player cannot force a win,
+     *         or {@link #UNKNOWN} if the search ran out of nodes or time
+     */
+    public int prove(TickTackToe game, int attacker, long maxNodes, Duration timeLimit) {
+        return prove(game, attacker, maxNodes, SearchWorker.deadlineAfter(timeLimit));
+    }
+
+    /**
+     * Finds a winning move for the player to move, from a proof of their win
+     * @param game the position, which must have been proven a win for the player to move
+     * @return the winning move (see {@link Board#toMove(int, int)}), or -1 if the table holds no proof
+     */
+    public int winningMove(TickTackToe game) {
+
+        attacker = game.curPlayerTurn();
+        final TickTackToe STATE = new TickTackToe(game);
+
+        // a move winning on the spot needs no table
+        final int TILES = STATE.BOARD_WIDTH * STATE.BOARD_HEIGHT;
+        for (int move = 0; move < TILES; move++) {
+            if (STATE.isPlayableTile(STATE.moveY(move), STATE.moveX(move))
+                && STATE.completesLine(STATE.moveY(move), STATE.moveX(move), attacker)) {
+                return move;
+            }
+        }
+
+        // otherwise looks for a child proven a win
+        // walks the tiles rather than the free cells, whose order changes as moves are made
+        for (int move = 0; move < TILES; move++) {
+            if (!STATE.isPlayableTile(STATE.moveY(move), STATE.moveX(move))) {
+                continue;
+            }
+            STATE.makeMove(move);
+            final int SLOT = find(key(STATE));
+            STATE.unmakeMove(move);
+            if (SLOT >= 0 && PROOFS[SLOT] == 0) {
+                return move;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Writes the table to a file
+     * @param file the file to write
+     * @throws IOException if the file could not be written
+     */
+    public void checkpoint(Path file) throws IOException {
+
+        // writes next to the file, then replaces it in one go
+        final Path TEMPORARY = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(TEMPORARY, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                    StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            final ByteBuffer BUFFER = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+            BUFFER.putInt(MAGIC).putInt(VERSION).putInt(boardWidth).putInt(boardHeight).putInt(winLength);
+            for (int i = 0; i < 3; i++) {
+                BUFFER.putInt(boardKeys == null ? 0 : boardKeys[i]);
+            }
+            BUFFER.putLong(KEYS.length).putLong(nodes);
+
+            // only the used entries are written, with their index
+            for (int i = 0; i < KEYS.length; i++) {
+                if (WORK[i] == 0) {
+                    continue;
+                }
+                if (BUFFER.remaining() < Integer.BYTES + ENTRY_BYTES) {
+                    write(channel, BUFFER);
+                }
+                BUFFER.putInt(i).putLong(KEYS[i]).putInt(PROOFS[i]).putInt(DISPROOFS[i]).putInt(WORK[i]);
+            }
+            write(channel, BUFFER);
+            channel.force(false);
+        }
+        Files.move(TEMPORARY, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Replaces the table with the one of a checkpoint
+     * @param file the checkpoint file
+     * @throws IOException if the file could not be read, is not a checkpoint or was written by a different table
+     */
+    public void resume(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+
+            final ByteBuffer BUFFER = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+            BUFFER.flip();
+
+            // checks the header
+            if (!fill(channel, BUFFER, HEADER_BYTES) || BUFFER.getInt() != MAGIC || BUFFER.getInt() != VERSION) {
+                throw new IOException(String.format("%s is not a checkpoint", file));
+            }
+            final int WIDTH = BUFFER.getInt();
+            final int HEIGHT = BUFFER.getInt();
+            final int WIN_LENGTH = BUFFER.getInt();
+            final int[] BOARD_KEYS = {BUFFER.getInt(), BUFFER.getInt(), BUFFER.getInt()};
+            if (BUFFER.getLong() != KEYS.length) {
+                throw new IOException(String.format("%s was written by a table of a different size", file));
+            }
+            final long NODES = BUFFER.getLong();
+
+            // reads every entry back into its slot
+            clear();
+            while (fill(channel, BUFFER, Integer.BYTES + ENTRY_BYTES)) {
+                final int SLOT = BUFFER.getInt();
+                if (SLOT < 0 || SLOT >= KEYS.length) {
+                    throw new IOException(String.format("%s is corrupt", file));
+                }
+                KEYS[SLOT] = BUFFER.getLong();
+                PROOFS[SLOT] = BUFFER.getInt();
+                DISPROOFS[SLOT] = BUFFER.getInt();
+                WORK[SLOT] = BUFFER.getInt();
+            }
+            if (BUFFER.hasRemaining()) {
+                throw new IOException(String.format("%s is truncated", file));
+            }
+
+            this.boardWidth = WIDTH;
+            this.boardHeight = HEIGHT;
+            this.winLength = WIN_LENGTH;
+            this.boardKeys = BOARD_KEYS;
+            this.nodes = NODES;
+        }
+    }
+
+    /**
+     * Forgets every position of the table
+     */
+    public void clear() {
+        for (int i = 0; i < KEYS.length; i++) {
+            WORK[i] = 0;
+        }
+        boardKeys = null;
+        nodes = 0;
+    }
+
+    /**
+     * Tries to prove that a player can force a win, until a deadline
+     * @param game the position, left unchanged
+     * @param attacker the key of the player trying to win
+     * @param maxNodes the largest number of nodes to search
+     * @param deadline the System.nanoTime() at which the search gives up
+     * @return {@link #PROVEN}, {@link #DISPROVEN} or {@link #UNKNOWN}
+     */
+    private int prove(TickTackToe game, int attacker, long maxNodes, long deadline) {
+
+        // if the player is not one of the game's...
+        if (attacker != game.PLAYER_X_KEY && attacker != game.PLAYER_O_KEY) {
+            // throws an error
+            throw new IllegalArgumentException("Attacker must be player X or player O");
+        }
+        adoptRules(game);
+
+        this.attacker = attacker;
+        this.nodeLimit = maxNodes > Long.MAX_VALUE - nodes ? Long.MAX_VALUE : nodes + maxNodes;
+        this.deadline = deadline;
+        this.stopped = false;
+
+        final int TILES = game.BOARD_WIDTH * game.BOARD_HEIGHT;
+        if (moveBuffers.length < TILES + 1) {
+            moveBuffers = new int[TILES + 1][TILES];
+        }
+
+        // searches from the root until it is solved or the search gives up
+        final TickTackToe STATE = new TickTackToe(game);
+        search(STATE, INFINITY, INFINITY, 0);
+
+        final int SLOT = find(key(STATE));
+        if (SLOT >= 0 && PROOFS[SLOT] == 0) {
+            return PROVEN;
+        }
+        if (SLOT >= 0 && DISPROOFS[SLOT] == 0) {
+            return DISPROVEN;
+        }
+        return UNKNOWN;
+    }
+
+    /**
+     * Searches a position until its proof number reaches one threshold or its disproof number the other
+     * @param game the position, left unchanged
+     * @param proofLimit the proof number threshold
+     * @param disproofLimit the disproof number threshold
+     * @param ply the number of moves played since the root
+     */
+    private void search(TickTackToe game, int proofLimit, int disproofLimit, int ply) {
+
+        final long KEY = key(game);
+        final long START = nodes;
+        nodes++;
+
+        // gives up once out of nodes or time, checking the clock now and then
+        if ((nodes & CLOCK_INTERVAL - 1) == 0) {
+            tick();
+        }
+        if (stopped || nodes >= nodeLimit) {
+            stopped = true;
+            return;
+        }
+
+        final boolean ATTACKING = game.curPlayerTurn() == attacker;
+
+        // the previous move ended the game : a win for the attacker proves the node, anything else disproves it
+        if (game.winner() != game.EMPTY_TILE_KEY || !game.hasSpaceLeft()) {
+            final boolean WON = game.winner() == attacker;
+            store(KEY, WON ? 0 : INFINITY, WON ? INFINITY : 0, 1);
+            return;
+        }
+
+        // lists the moves, a move winning on the spot deciding the node at once
+        final int[] MOVES = moveBuffers[ply];
+        final int MOVE_COUNT = game.getFreeCellCount();
+        final int MOVER = game.curPlayerTurn();
+        for (int i = 0; i < MOVE_COUNT; i++) {
+            MOVES[i] = game.getFreeCell(i);
+            if (game.completesLine(game.moveY(MOVES[i]), game.moveX(MOVES[i]), MOVER)) {
+                store(KEY, ATTACKING ? 0 : INFINITY, ATTACKING ? INFINITY : 0, 1);
+                return;
+            }
+        }
+
+        int proof;
+        int disproof;
+        while (true) {
+
+            // gathers the numbers of the children, unknown children counting as 1
+            // the best child is the easiest to prove at OR nodes and to disprove at AND nodes
+            int minimum = INFINITY;
+            int sum = 0;
+            int best = -1;
+            int bestProof = 1;
+            int bestDisproof = 1;
+            int second = INFINITY;
+            for (int i = 0; i < MOVE_COUNT; i++) {
+                game.makeMove(MOVES[i]);
+                final int SLOT = find(key(game));
+                game.unmakeMove(MOVES[i]);
+
+                final int CHILD_PROOF = SLOT < 0 ? 1 : PROOFS[SLOT];
+                final int CHILD_DISPROOF = SLOT < 0 ? 1 : DISPROOFS[SLOT];
+                final int SELECTED = ATTACKING ? CHILD_PROOF : CHILD_DISPROOF;
+                sum = Math.min(sum + (ATTACKING ? CHILD_DISPROOF : CHILD_PROOF), INFINITY);
+                if (SELECTED < minimum) {
+                    second = minimum;
+                    minimum = SELECTED;
+                    best = i;
+                    bestProof = CHILD_PROOF;
+                    bestDisproof = CHILD_DISPROOF;
+                } else if (SELECTED < second) {
+                    second = SELECTED;
+                }
+            }
+            proof = ATTACKING ? minimum : sum;
+            disproof = ATTACKING ? sum : minimum;
+
+            // stops once a threshold is reached
+            if (proof >= proofLimit || disproof >= disproofLimit || stopped) {
+                break;
+            }
+
+            // searches the best child until it stops being the best one
+            final int MOVE = MOVES[best];
+            game.makeMove(MOVE);
+            if (ATTACKING) {
+                search(game, Math.min(proofLimit, second == INFINITY ? INFINITY : second + 1),
+                       saturate(disproofLimit - disproof + bestDisproof), ply + 1);
+            } else {
+                search(game, saturate(proofLimit - proof + bestProof),
+                       Math.min(disproofLimit, second == INFINITY ? INFINITY : second + 1), ply + 1);
+            }
+            game.unmakeMove(MOVE);
+        }
+
+        // a search given up halfway must not reach the table
+        if (stopped) {
+            return;
+        }
+
+        // a solved node answers for its subtree, so the entries of its children can go
+        // except for the child solving a node on its own, which keeps the winning line readable
+        if (proof == 0 || disproof == 0) {
+            final boolean BY_ONE_CHILD = ATTACKING ? proof == 0 : disproof == 0;
+            boolean kept = false;
+            for (int i = 0; i < MOVE_COUNT; i++) {
+                game.makeMove(MOVES[i]);
+                final int SLOT = find(key(game));
+                game.unmakeMove(MOVES[i]);
+                if (SLOT < 0) {
+                    continue;
+                }
+                if (BY_ONE_CHILD && !kept && (ATTACKING ? PROOFS[SLOT] : DISPROOFS[SLOT]) == 0) {
+                    kept = true;
+                    continue;
+                }
+                WORK[SLOT] = 0;
+            }
+        }
+        store(KEY, proof, disproof, (int) Math.min(nodes - START, Integer.MAX_VALUE));
+    }
+
+    /**
+     * Checks the clock, giving up once the deadline is reached and writing a checkpoint when one is due
+     */
+    private void tick() {
+
+        final long NOW = System.nanoTime();
+        if (deadline != SearchWorker.NO_DEADLINE && NOW - deadline >= 0) {
+            stopped = true;
+        }
+
+        if (checkpointFile != null && NOW - lastCheckpoint >= checkpointNanos) {
+            try {
+                checkpoint(checkpointFile);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            lastCheckpoint = NOW;
+        }
+    }
+
+    /**
+     * Keeps the rules of the game being solved, refusing games with other rules while the table is in use
+     * @param game the game being solved
+     */
+    private void adoptRules(TickTackToe game) {
+
+        final int[] KEYS_OF_GAME = {game.EMPTY_TILE_KEY, game.PLAYER_O_KEY, game.PLAYER_X_KEY};
+
+        // if the table holds positions of another game...
+        if (boardKeys != null && (boardWidth != game.BOARD_WIDTH || boardHeight != game.BOARD_HEIGHT
+                                  || winLength != game.WIN_LENGTH || boardKeys[0] != KEYS_OF_GAME[0]
+                                  || boardKeys[1] != KEYS_OF_GAME[1] || boardKeys[2] != KEYS_OF_GAME[2])) {
+            // throws an error
+            throw new IllegalArgumentException(String.format("Table holds %sx%s positions with a win length of %s, "
+                                                             + "clear it first", boardWidth, boardHeight, winLength));
+        }
+
+        boardWidth = game.BOARD_WIDTH;
+        boardHeight = game.BOARD_HEIGHT;
+        winLength = game.WIN_LENGTH;
+        boardKeys = KEYS_OF_GAME;
+    }
+
+    /**
+     * Computes the key of a position in the current proof
+     * @param game the position
+     * @return the key of the position
+     */
+    private long key(TickTackToe game) {
+        return game.getZobristHash() ^ (attacker == game.PLAYER_X_KEY ? PLAYER_X_ATTACKS : PLAYER_O_ATTACKS);
+    }
+
+    /**
+     * Looks up a position
+     * @param key the key of the position
+     * @return the slot of the position, or -1 if it is not stored
+     */
+    private int find(long key) {
+        final int FIRST = bucketOf(key);
+        for (int i = FIRST; i < FIRST + BUCKET_SIZE; i++) {
+            if (WORK[i] != 0 && KEYS[i] == key) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Stores the numbers of a position, in its own slot, an unused one, or the one which took the least work
+     * @param key the key of the position
+     * @param proof the proof number
+     * @param disproof the disproof number
+     * @param work the number of nodes the search of the position took
+     */
+    private void store(long key, int proof, int disproof, int work) {
+
+        final int FIRST = bucketOf(key);
+        int slot = FIRST;
+        for (int i = FIRST; i < FIRST + BUCKET_SIZE; i++) {
+            if (WORK[i] != 0 && KEYS[i] == key) {
+                // the position keeps the work of its earlier searches
+                slot = i;
+                work = (int) Math.min((long) work + WORK[i], Integer.MAX_VALUE);
+                break;
+            }
+            if (WORK[i] < WORK[slot]) {
+                slot = i;
+            }
+        }
+
+        KEYS[slot] = key;
+        PROOFS[slot] = proof;
+        DISPROOFS[slot] = disproof;
+        WORK[slot] = Math.max(work, 1);
+    }
+
+    /**
+     * Finds the first slot of the bucket of a position
+     * @param key the key of the position
+     * @return the index of the bucket's first slot
+     */
+    private int bucketOf(long key) {
+        // mixes the high bits in so that neighbouring hashes spread out
+        return (int) ((key ^ key >>> 32) & BUCKET_MASK) * BUCKET_SIZE;
+    }
+
+    /**
+     * Keeps a threshold within the numbers the search uses
+     * @param threshold the threshold
+     * @return the threshold, at most {@link #INFINITY}
+     */
+    private static int saturate(int threshold) {
+        return Math.min(threshold, INFINITY);
+    }
+
+    /**
+     * Writes a buffer to a channel, leaving it empty
+     * @param channel the channel
+     * @param buffer the buffer to write
+     * @throws IOException if the buffer could not be written
+     */
+    private static void write(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Makes sure a buffer holds enough bytes to read, reading more of the channel if needed
+     * @param channel the channel
+     * @param buffer the buffer, ready to be read
+     * @param bytes the number of bytes needed
+     * @return whether the bytes are available, false if the channel ended first
+     * @throws IOException if the channel could not be read
+     */
+    private static boolean fill(FileChannel channel, ByteBuffer buffer, int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) {
+            return true;
+        }
+        buffer.compact();
+        while (buffer.position() < bytes) {
+            if (channel.read(buffer) < 0) {
+                break;
+            }
+        }
+        buffer.flip();
+        return buffer.remaining() >= bytes;
+    }
+}
@@ -0,0 +1,90 @@
+package TickTackToe;
+
+/**
+ * The outcome of a search : the move found and how much work went into finding it
+ */
+public class SearchResult {
+
+    // the best move found, or -1 if the game was already over
+    private final int MOVE;
+
+    // the score of the move from the point of view of the player who plays it
+    private final int SCORE;
+
+    // the depth of the last search which ran to completion
+    private final int DEPTH;
+
+    // the number of positions visited
+    private final long NODES;
+
+    // the time spent searching, in nanoseconds
+    private final long ELAPSED_NANOS;
+
+    /**
+     * Creates the outcome of a search
+     * @param move the best move found, or -1 if the game was already over
+     * @param score the score of the move
+     * @param depth the depth of the last search which ran to completion
+     * @param nodes the number of positions visited
+     * @param elapsedNanos the time spent searching, in nanoseconds
+     */
+    SearchResult(int move, int score, int depth, long nodes, long elapsedNanos) {
+        this.MOVE = move;
+        this.SCORE = score;
+        this.DEPTH = depth;
+        this.NODES = nodes;
+        this.ELAPSED_NANOS = elapsedNanos;
+    }
+
+    /**
+     * Gets the best move found
+     * @return the move (see {@link Board#toMove(int, int)}), or -1 if the game was already over
+     */
+    public int getMove() {
+        return MOVE;
+    }
+
+    /**
+     * Gets the score of the best move, from the point of view of the player who plays it
+     * @return the score of the move
+     */
+    public int getScore() {
+        return SCORE;
+    }
+
+    /**
+     * Gets the depth reached : the depth of the last search which ran to completion
+     * <br>
+     * A depth of 0 means no search completed and the move is the most promising one before searching
+     * @return the depth reached
+     */
+    public int getDepth() {
+        return DEPTH;
+    }
+
+    /**
+     * Gets the number of positions visited
+     * @return the number of visited positions
+     */
+    public long getNodes() {
+        return NODES;
+    }
+
+    /**
+     * Gets the time spent searching
+     * @return the time spent, in nanoseconds
+     */
+    public long getElapsedNanos() {
+        return ELAPSED_NANOS;
+    }
+
+    /**
+     * Used to specify conversion of the result to a string
+     * @return the result under string format
+     */
+    @Override
+    public String toString() {
+        return String.format("move %s, score %s, depth %s, %s nodes in %s ms",
+                             MOVE, SCORE, DEPTH, NODES, ELAPSED_NANOS / 1_000_000);
+    }
+}
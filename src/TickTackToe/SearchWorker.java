@@ -0,0 +1,322 @@
+package TickTackToe;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Runs the negamax search of an {@link AI} on a single thread
+ * <br>
+ * A worker owns its move buffers and node count, only the transposition table is shared between workers
+ */
+final class SearchWorker {
+
+    // score of a won position, lowered by one for every ply needed to reach the win
+    static final int WIN_SCORE = 100_000_000;
+
+    // scores above this one are wins found a known number of plies away
+    static final int WIN_THRESHOLD = WIN_SCORE / 2;
+
+    // deadline of searches without a time limit
+    static final long NO_DEADLINE = Long.MAX_VALUE;
+
+    // the clock is only read once every this many positions (must be a power of two)
+    private static final int DEADLINE_CHECK_INTERVAL = 128;
+
+    // move ordering bonuses for moves which win on the spot, were best in a previous search
+    // or stop the opponent from winning
+    private static final int WINNING_MOVE_BONUS = 8_000_000;
+    private static final int HASH_MOVE_BONUS = 2_000_000;
+    private static final int BLOCKING_MOVE_BONUS = 1_000_000;
+
+    // the results of previously searched positions
+    private final TranspositionTable TABLE;
+
+    // the candidate moves and their ordering scores, one buffer per ply
+    private int[][] moveBuffers = new int[0][];
+    private int[][] orderBuffers = new int[0][];
+
+    // the number of positions visited since the last reset
+    private long searchedNodes;
+
+    // the System.nanoTime() past which the search gives up
+    private long deadline;
+
+    // whether the search gave up because it ran out of time
+    private boolean stopped;
+
+    /**
+     * Computes the deadline of a search given a time budget
+     * @param budget the time the search may take
+     * @return the System.nanoTime() past which the search gives up, or {@link #NO_DEADLINE} for budgets too long
+     *         to count in nanoseconds
+     */
+    static long deadlineAfter(Duration budget) {
+        // budgets too long to count in nanoseconds never run out
+        if (budget.compareTo(Duration.ofDays(365)) > 0) {
+            return NO_DEADLINE;
+        }
+        return System.nanoTime() + budget.toNanos();
+    }
+
+    /**
+     * Creates a worker searching with the given table
+     * @param table the transposition table shared by every worker of the engine
+     */
+    SearchWorker(TranspositionTable table) {
+        this.TABLE = table;
+    }
+
+    /**
+     * Gets the number of positions visited since the last reset
+     * @return the number of visited positions
+     */
+    long getSearchedNodes() {
+        return searchedNodes;
+    }
+
+    /**
+     * Gets ready for a new search, resetting the number of visited positions
+     * @param deadline the System.nanoTime() past which the search gives up, or {@link #NO_DEADLINE}
+     */
+    void startSearch(long deadline) {
+        this.searchedNodes = 0;
+        this.deadline = deadline;
+        this.stopped = false;
+    }
+
+    /**
+     * Gives up the search if it has run out of time
+     * @return whether the search was stopped
+     */
+    boolean checkDeadline() {
+        if (deadline != NO_DEADLINE && System.nanoTime() - deadline > 0) {
+            stopped = true;
+        }
+        return stopped;
+    }
+
+    /**
+     * Determines whether the search gave up because it ran out of time
+     * <br>
+     * The scores returned by a stopped search are meaningless and must be thrown away
+     * @return whether the search was stopped
+     */
+    boolean isStopped() {
+        return stopped;
+    }
+
+    /**
+     * Gets the moves listed by the last call to {@link #orderMoves(TickTackToe, int, int)} for a ply
+     * @param ply the ply of the moves
+     * @return the moves, most promising first
+     */
+    int[] movesAt(int ply) {
+        return moveBuffers[ply];
+    }
+
+    /**
+     * Determines whether the most promising move listed for a ply wins on the spot
+     * @param ply the ply of the moves
+     * @return whether the first move wins the game
+     */
+    boolean firstMoveWins(int ply) {
+        // the other bonuses and the distance to the centre never add up to half a winning bonus
+        return orderBuffers[ply][0] > WINNING_MOVE_BONUS / 2;
+    }
+
+    /**
+     * Scores a position from the point of view of the player whose turn it is
+     * @param game the position to score
+     * @param depth the number of plies left to search
+     * @param alpha the score the player is already assured of
+     * @param beta the score the opponent is already assured of
+     * @param ply the number of moves played since the root of the search
+     * @return the score of the position
+     */
+    int negamax(TickTackToe game, int depth, int alpha, int beta, int ply) {
+
+        // checks the clock every so often
+        if ((++searchedNodes & DEADLINE_CHECK_INTERVAL - 1) == 0 ? checkDeadline() : stopped) {
+            return 0;
+        }
+
+        // the previous move filled the last tile without winning
+        if (!game.hasSpaceLeft()) {
+            return 0;
+        }
+
+        // the search horizon is scored as a draw
+        if (depth == 0) {
+            return 0;
+        }
+
+        // looks for a previous search of the same position
+        final long KEY = game.getZobristHash();
+        final long ENTRY = TABLE.probe(KEY);
+        if (ENTRY != TranspositionTable.NO_ENTRY
+            && TranspositionTable.depthOf(ENTRY) >= Math.min(depth, TranspositionTable.MAX_STORED_DEPTH)) {
+
+            final int SCORE = fromTable(TranspositionTable.scoreOf(ENTRY), ply);
+            final int BOUND = TranspositionTable.boundOf(ENTRY);
+
+            // the stored score settles the position when it is exact or falls outside the window
+            if (BOUND == TranspositionTable.EXACT
+                || BOUND == TranspositionTable.LOWER_BOUND && SCORE >= beta
+                || BOUND == TranspositionTable.UPPER_BOUND && SCORE <= alpha) {
+                return SCORE;
+            }
+        }
+
+        final int MOVE_COUNT = orderMoves(game, ply, TranspositionTable.moveOf(ENTRY));
+        final int[] MOVES = moveBuffers[ply];
+
+        // a move which wins on the spot ends the search
+        if (firstMoveWins(ply)) {
+            TABLE.store(KEY, depth, TranspositionTable.EXACT, toTable(WIN_SCORE - ply - 1, ply), MOVES[0]);
+            return WIN_SCORE - ply - 1;
+        }
+
+        final int ALPHA = alpha;
+        int bestScore = -WIN_SCORE - 1;
+        int bestMove = -1;
+        for (int i = 0; i < MOVE_COUNT; i++) {
+            game.makeMove(MOVES[i]);
+            final int SCORE = -negamax(game, depth - 1, -beta, -alpha, ply + 1);
+            game.unmakeMove(MOVES[i]);
+
+            // an unfinished search must not reach the table
+            if (stopped) {
+                return 0;
+            }
+
+            if (SCORE > bestScore) {
+                bestScore = SCORE;
+                bestMove = MOVES[i];
+                if (SCORE > alpha) {
+                    alpha = SCORE;
+                    // the opponent will never allow this position
+                    if (alpha >= beta) {
+                        break;
+                    }
+                }
+            }
+        }
+
+        // remembers what kind of score the search proved
+        final int BOUND = bestScore <= ALPHA ? TranspositionTable.UPPER_BOUND
+                        : bestScore >= beta ? TranspositionTable.LOWER_BOUND
+                        : TranspositionTable.EXACT;
+        TABLE.store(KEY, depth, BOUND, toTable(bestScore, ply), bestMove);
+
+        return bestScore;
+    }
+
+    /**
+     * Lists the empty tiles of a position, most promising first : winning moves,
+     * then the best move of a previous search, then moves blocking an opponent's win, then tiles closest to the centre
+     * <br>
+     * Moves with the same ordering score are listed by increasing tile index
+     * @param game the position to list the moves of
+     * @param ply the ply whose buffers receive the moves
+     * @param hashMove the best move of a previous search of the position, or -1 if there is none
+     * @return the number of moves
+     */
+    int orderMoves(TickTackToe game, int ply, int hashMove) {
+
+        final int TILES = game.BOARD_WIDTH * game.BOARD_HEIGHT;
+        ensureBuffers(ply, TILES);
+        final int[] MOVES = moveBuffers[ply];
+        final int[] ORDER = orderBuffers[ply];
+
+        final int PLAYER = game.curPlayerTurn();
+        final int OPPONENT = PLAYER == game.PLAYER_X_KEY ? game.PLAYER_O_KEY : game.PLAYER_X_KEY;
+
+        // only looks at the empty tiles, which the board keeps track of
+        final int MOVE_COUNT = game.getFreeCellCount();
+        for (int moveCount = 0; moveCount < MOVE_COUNT; moveCount++) {
+            final int MOVE = game.getFreeCell(moveCount);
+            final int X = game.moveX(MOVE);
+            final int Y = game.moveY(MOVE);
+
+            // tiles closer to the centre come first
+            int order = -Math.abs(2 * X - game.BOARD_WIDTH + 1) - Math.abs(2 * Y - game.BOARD_HEIGHT + 1);
+
+            // then come the threats
+            if (game.completesLine(Y, X, PLAYER)) {
+                order += WINNING_MOVE_BONUS;
+            } else if (game.completesLine(Y, X, OPPONENT)) {
+                order += BLOCKING_MOVE_BONUS;
+            }
+
+            // and the move a previous search found best
+            if (MOVE == hashMove) {
+                order += HASH_MOVE_BONUS;
+            }
+
+            // inserts the move after every better one, and after equal ones on lower tiles
+            int i = moveCount;
+            while (i > 0 && (ORDER[i - 1] < order || ORDER[i - 1] == order && MOVES[i - 1] > MOVE)) {
+                MOVES[i] = MOVES[i - 1];
+                ORDER[i] = ORDER[i - 1];
+                i--;
+            }
+            MOVES[i] = MOVE;
+            ORDER[i] = order;
+        }
+
+        return MOVE_COUNT;
+    }
+
+    /**
+     * Converts a score into its stored form : wins are counted from the position rather than from the root
+     * @param score the score relative to the root
+     * @param ply the number of moves played since the root of the search
+     * @return the score to store
+     */
+    static int toTable(int score, int ply) {
+        if (score > WIN_THRESHOLD) {
+            return score + ply;
+        }
+        if (score < -WIN_THRESHOLD) {
+            return score - ply;
+        }
+        return score;
+    }
+
+    /**
+     * Converts a stored score back into a score relative to the root
+     * @param score the stored score
+     * @param ply the number of moves played since the root of the search
+     * @return the score relative to the root
+     */
+    static int fromTable(int score, int ply) {
+        if (score > WIN_THRESHOLD) {
+            return score - ply;
+        }
+        if (score < -WIN_THRESHOLD) {
+            return score + ply;
+        }
+        return score;
+    }
+
+    /**
+     * Makes sure a ply has buffers large enough for every tile of the board
+     * @param ply the ply needing buffers
+     * @param tiles the number of tiles of the board
+     */
+    private void ensureBuffers(int ply, int tiles) {
+
+        // grows the list of buffers to reach that ply
+        if (ply >= moveBuffers.length) {
+            final int LENGTH = Math.max(ply + 1, 2 * moveBuffers.length);
+            moveBuffers = Arrays.copyOf(moveBuffers, LENGTH);
+            orderBuffers = Arrays.copyOf(orderBuffers, LENGTH);
+        }
+
+        // creates the buffers of that ply
+        if (moveBuffers[ply] == null || moveBuffers[ply].length < tiles) {
+            moveBuffers[ply] = new int[tiles];
+            orderBuffers[ply] = new int[tiles];
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package TickTackToe;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Plays large numbers of games between two policies on every core
+ * <br>
+ * Each thread plays on a board of its own, reset between games, and draws its moves from its own seeded random
+ * source. Only aggregate statistics are kept, in striped counters which can be read while the games are played
+ */
+public class SelfPlaySimulator {
+
+    // the number of games a thread claims at once
+    private static final int BATCH_SIZE = 64;
+
+    // the rules of the simulated games
+    private final int BOARD_WIDTH;
+    private final int BOARD_HEIGHT;
+    private final int WIN_LENGTH;
+
+    // create the policies of each player, once per thread
+    private final Supplier<PlayerPolicy> PLAYER_X_POLICY;
+    private final Supplier<PlayerPolicy> PLAYER_O_POLICY;
+
+    // the number of threads playing games
+    private final int THREADS;
+
+    // the seed of the random sources
+    private final long SEED;
+
+    // the outcomes of the games played
+    private final LongAdder GAMES = new LongAdder();
+    private final LongAdder PLAYER_X_WINS = new LongAdder();
+    private final LongAdder PLAYER_O_WINS = new LongAdder();
+    private final LongAdder MOVES = new LongAdder();
+
+    // the number of games of each length
+    private final LongAdder[] LENGTHS;
+
+    // the time the last run started, and how long it took once over
+    private volatile long startNanos;
+    private volatile long elapsedNanos = -1;
+
+    /**
+     * Creates a simulator of square boards where players must fill a whole line, using every core
+     * @param dimension the size of the board
+     * @param playerX creates the policy of player X
+     * @param playerO creates the policy of player O
+     * @param seed the seed of the random sources
+     */
+    public SelfPlaySimulator(int dimension, Supplier<PlayerPolicy> playerX, Supplier<PlayerPolicy> playerO,
+                             long seed) {
+        this(dimension, dimension, dimension, playerX, playerO, Runtime.getRuntime().availableProcessors(), seed);
+    }
+
+    /**
+     * Creates a simulator
+     * @param width the number of columns of the board
+     * @param height the number of rows of the board
+     * @param winLength the number of aligned pawns needed to win
+     * @param playerX creates the policy of player X
+     * @param playerO creates the policy of player O
+     * @param threads the number of threads playing games
+     * @param seed the seed of the random sources
+     */
+    public SelfPlaySimulator(int width, int height, int winLength,
+                             Supplier<PlayerPolicy> playerX, Supplier<PlayerPolicy> playerO, int threads, long seed) {
+
+        // if no thread is left to play...
+        if (threads < 1) {
+            // throws an error
+            throw new IllegalArgumentException("Simulation needs at least 1 thread");
+        }
+
+        // checks the rules once rather than on every thread
+        new TickTackToe(width, height, winLength, GameSessions.EMPTY_TILE_KEY,
+                        GameSessions.PLAYER_O_KEY, GameSessions.PLAYER_X_KEY);
+
+        this.BOARD_WIDTH = width;
+        this.BOARD_HEIGHT = height;
+        this.WIN_LENGTH = winLength;
+        this.PLAYER_X_POLICY = playerX;
+        this.PLAYER_O_POLICY = playerO;
+        this.THREADS = threads;
+        this.SEED = seed;
+
+        // a game lasts anywhere from 0 moves to every tile
+        LENGTHS = new LongAdder[width * height + 1];
+        for (int i = 0; i < LENGTHS.length; i++) {
+            LENGTHS[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Creates policies playing uniformly random moves
+     * @return the factory of random policies
+     */
+    public static Supplier<PlayerPolicy> randomPolicy() {
+        // the board keeps its empty tiles in a list, so a pick takes constant time
+        return () -> (game, random) -> game.randomFreeCell(random);
+    }
+
+    /**
+     * Creates policies playing the moves of an {@link AI}, each with an engine and table of its own
+     * <br>
+     * The engine always plays the same move in the same position, so games between two engines all look alike
+     * @param depth the number of plies the engine looks ahead
+     * @param tableBytes the memory each engine's transposition table may use, in bytes
+     * @return the factory of engine policies
+     */
+    public static Supplier<PlayerPolicy> enginePolicy(int depth, long tableBytes) {
+        return () -> {
+            final AI ENGINE = new AI(depth, new TranspositionTable(tableBytes), 1);
+            return (game, random) -> ENGINE.bestMove(game);
+        };
+    }
+
+    /**
+     * Plays games until the given number have been played, adding their outcomes to the statistics
+     * @param games the number of games to play
+     * @throws InterruptedException if the thread was interrupted while waiting for the games
+     * @throws IllegalStateException if a game failed, e.g. because a policy chose a taken or off-board tile
+     */
+    public void run(long games) throws InterruptedException {
+
+        final AtomicLong CLAIMED = new AtomicLong();
+        final SplittableRandom ROOT = new SplittableRandom(SEED);
+        final ExecutorService EXECUTOR = Executors.newFixedThreadPool(THREADS);
+
+        startNanos = System.nanoTime();
+        elapsedNanos = -1;
+        try {
+            // every thread plays batches of games until none are left
+            final List<Future<?>> RUNS = new ArrayList<>(THREADS);
+            for (int i = 0; i < THREADS; i++) {
+                final SplittableRandom RANDOM = ROOT.split();
+                RUNS.add(EXECUTOR.submit(() -> play(games, CLAIMED, RANDOM)));
+            }
+            for (Future<?> run : RUNS) {
+                run.get();
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Simulation failed", e.getCause());
+        } finally {
+            EXECUTOR.shutdownNow();
+            elapsedNanos = System.nanoTime() - startNanos;
+        }
+    }
+
+    /**
+     * Plays batches of games on a single thread
+     * @param games the number of games to play across every thread
+     * @param claimed the number of games already claimed by the threads
+     * @param random the random source of the thread
+     */
+    private void play(long games, AtomicLong claimed, SplittableRandom random) {
+
+        final TickTackToe GAME = new TickTackToe(BOARD_WIDTH, BOARD_HEIGHT, WIN_LENGTH, GameSessions.EMPTY_TILE_KEY,
+                                                 GameSessions.PLAYER_O_KEY, GameSessions.PLAYER_X_KEY);
+        final PlayerPolicy PLAYER_X = PLAYER_X_POLICY.get();
+        final PlayerPolicy PLAYER_O = PLAYER_O_POLICY.get();
+
+        long first;
+        while ((first = claimed.getAndAdd(BATCH_SIZE)) < games) {
+            final long LAST = Math.min(first + BATCH_SIZE, games);
+            for (long game = first; game < LAST && !Thread.currentThread().isInterrupted(); game++) {
+
+                GAME.reset();
+                while (GAME.winner() == GAME.EMPTY_TILE_KEY && GAME.hasSpaceLeft()) {
+                    final PlayerPolicy POLICY = GAME.curPlayerTurn() == GAME.PLAYER_X_KEY ? PLAYER_X : PLAYER_O;
+                    // a policy choosing a taken or off-board tile is an error rather than a corrupted game
+                    GAME.make(POLICY.chooseMove(GAME, random));
+                }
+
+                // records the outcome
+                final int WINNER = GAME.winner();
+                if (WINNER == GAME.PLAYER_X_KEY) {
+                    PLAYER_X_WINS.increment();
+                } else if (WINNER == GAME.PLAYER_O_KEY) {
+                    PLAYER_O_WINS.increment();
+                }
+                MOVES.add(GAME.turn);
+                LENGTHS[GAME.turn].increment();
+                GAMES.increment();
+            }
+        }
+    }
+
+    /**
+     * Gets the number of games played
+     * @return the number of games
+     */
+    public long getGames() {
+        return GAMES.sum();
+    }
+
+    /**
+     * Gets the number of games won by player X
+     * @return the number of wins
+     */
+    public long getPlayerXWins() {
+        return PLAYER_X_WINS.sum();
+    }
+
+    /**
+     * Gets the number of games won by player O
+     * @return the number of wins
+     */
+    public long getPlayerOWins() {
+        return PLAYER_O_WINS.sum();
+    }
+
+    /**
+     * Gets the number of games neither player won
+     * @return the number of draws
+     */
+    public long getDraws() {
+        return getGames() - getPlayerXWins() - getPlayerOWins();
+    }
+
+    /**
+     * Gets the number of games which lasted a given number of moves
+     * @param moves the length of the games
+     * @return the number of games of that length
+     */
+    public long getGamesOfLength(int moves) {
+        return moves < 0 || moves >= LENGTHS.length ? 0 : LENGTHS[moves].sum();
+    }
+
+    /**
+     * Gets the average number of moves of a game
+     * @return the average game length
+     */
+    public double getAverageLength() {
+        final long GAMES_PLAYED = getGames();
+        return GAMES_PLAYED == 0 ? 0 : (double) MOVES.sum() / GAMES_PLAYED;
+    }
+
+    /**
+     * Gets the number of games played per second, since the start of the last run
+     * @return the throughput in games per second
+     */
+    public double getGamesPerSecond() {
+        final long ELAPSED = elapsedNanos >= 0 ? elapsedNanos : System.nanoTime() - startNanos;
+        return ELAPSED <= 0 ? 0 : getGames() * 1e9 / ELAPSED;
+    }
+
+    /**
+     * Summarises the statistics, which may be read while games are being played
+     * @return the summary
+     */
+    @Override
+    public String toString() {
+        final long GAMES_PLAYED = Math.max(getGames(), 1);
+        return String.format("%s games : X %.2f%%, O %.2f%%, draws %.2f%%, %.2f moves per game, %.0f games/s",
+                             getGames(), 100.0 * getPlayerXWins() / GAMES_PLAYED,
+                             100.0 * getPlayerOWins() / GAMES_PLAYED, 100.0 * getDraws() / GAMES_PLAYED,
+                             getAverageLength(), getGamesPerSecond());
+    }
+}
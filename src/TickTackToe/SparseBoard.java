@@ -0,0 +1,397 @@
+package TickTackToe;
+
+import java.util.Arrays;
+
+/**
+ * Represents a Tick Tack Toe Board without bounds, where players must align a given number of pawns
+ * <br>
+ * Only the occupied tiles are stored, in an open-addressing hash map keyed by the tile's packed coordinates,
+ * so memory and time per move grow with the number of pawns rather than with the area of the board.
+ * Any int coordinates are valid, and every tile which was never played on is empty.
+ * Wins are found by following the runs through the last pawn placed, at most WIN_LENGTH - 1 tiles each way
+ */
+public class SparseBoard {
+
+    // the number of slots of a new map
+    private static final int INITIAL_CAPACITY = 64;
+
+    // the owner of a vacant slot, and the owners of the players' pawns
+    private static final byte VACANT = 0;
+    private static final byte PLAYER_X = 1;
+    private static final byte PLAYER_O = 2;
+
+    // the integers which represent the tiles on the board
+    protected final int EMPTY_TILE_KEY;
+    protected final int PLAYER_O_KEY;
+    protected final int PLAYER_X_KEY;
+
+    // the number of aligned pawns a player needs to win
+    protected final int WIN_LENGTH;
+
+    // the packed coordinates of the occupied tiles, and who owns each of them
+    // a slot is vacant when its owner is VACANT, whatever its key
+    private long[] keys = new long[INITIAL_CAPACITY];
+    private byte[] owners = new byte[INITIAL_CAPACITY];
+
+    // the number of occupied tiles
+    private int size = 0;
+
+    // the current turn
+    // player X plays on even turns
+    // player O plays on odd turns
+    protected int turn = 0;
+
+    // the first player to align WIN_LENGTH pawns, or the empty tile key while no player has
+    private int winner;
+
+    /**
+     * Creates an empty unbounded board
+     * <br>
+     * Valid Key Combination :
+     * <br>
+     * {empty tile key, player O key, player X key}
+     * <ul>
+     *      <li>-1, 0, 1
+     *      <li>0, -1, 1
+     *      <li>0, 1, -1
+     * </ul>
+     * @param winLength the number of aligned pawns needed to win
+     * @param EMPTY_TILE_KEY integer representing empty tiles in the board
+     * @param PLAYER_O_KEY integer representing player O in the board
+     * @param PLAYER_X_KEY integer representing player X in the board
+     */
+    public SparseBoard(int winLength, int EMPTY_TILE_KEY, int PLAYER_O_KEY, int PLAYER_X_KEY) {
+
+        // if no line could ever be won...
+        if (winLength < 1) {
+            // throws an error
+            throw new IllegalArgumentException("Win length must be at least 1");
+        }
+
+        // if the player and empty tile keys the same...
+        if (PLAYER_X_KEY == PLAYER_O_KEY || PLAYER_X_KEY == EMPTY_TILE_KEY || PLAYER_O_KEY == EMPTY_TILE_KEY) {
+            // throws an error
+            throw new IllegalArgumentException("Player and empty tile keys cannot be identical");
+        }
+
+        // if a key is not one of -1, 0 or 1...
+        if (Math.abs(EMPTY_TILE_KEY) > 1 || Math.abs(PLAYER_O_KEY) > 1 || Math.abs(PLAYER_X_KEY) > 1) {
+            // throws an error
+            throw new IllegalArgumentException("Key combination is invalid");
+        }
+
+        this.WIN_LENGTH = winLength;
+        this.EMPTY_TILE_KEY = EMPTY_TILE_KEY;
+        this.PLAYER_O_KEY = PLAYER_O_KEY;
+        this.PLAYER_X_KEY = PLAYER_X_KEY;
+        this.winner = EMPTY_TILE_KEY;
+    }
+
+    /**
+     * Gets the empty tile key
+     * @return the empty tile key
+     */
+    public int getEMPTY_TILE_KEY() {
+        return EMPTY_TILE_KEY;
+    }
+
+    /**
+     * Gets the number of aligned pawns needed to win
+     * @return the win length
+     */
+    public int getWIN_LENGTH() {
+        return WIN_LENGTH;
+    }
+
+    /**
+     * Gets the number of pawns on the board
+     * @return the number of occupied tiles
+     */
+    public int getPawnCount() {
+        return size;
+    }
+
+    /**
+     * Determines whose player it is the turn to play
+     * @return the key of the player whose turn it is to play
+     */
+    int curPlayerTurn() {
+        return turn % 2 == 0 ? PLAYER_X_KEY : PLAYER_O_KEY;
+    }
+
+    /**
+     * Allows the player whose turn it is to place a pawn on the board
+     * <br>
+     * Taken tiles, and every move once the game is won, are ignored
+     * @param x the x-coordinates of the pawn
+     * @param y the y-coordinates of the pawn
+     */
+    public void play(int x, int y) {
+        // if the game goes on and the tile is empty...
+        if (winner == EMPTY_TILE_KEY && isPlayableTile(y, x)) {
+            // places the corresponding player tile and moves on to the next turn
+            play(y, x, curPlayerTurn());
+            turn++;
+        }
+    }
+
+    /**
+     * Places a pawn on the specified tile, or removes it when the pawn is the empty tile key
+     * @param y y-coordinates of the pawn
+     * @param x x-coordinates of the pawn
+     * @param pawn integer to represent the pawn on the board
+     */
+    void play(int y, int x, int pawn) {
+
+        // the pawn must be one of the board's keys
+        if (pawn != EMPTY_TILE_KEY && pawn != PLAYER_O_KEY && pawn != PLAYER_X_KEY) {
+            throw new IllegalArgumentException("Specified tile is invalid");
+        }
+
+        final long KEY = key(y, x);
+        final int SLOT = find(KEY);
+
+        // empties the tile
+        if (pawn == EMPTY_TILE_KEY) {
+            if (owners[SLOT] != VACANT) {
+                final int REMOVED = toKey(owners[SLOT]);
+                remove(SLOT);
+                // the removed pawn may have belonged to the winning line
+                if (REMOVED == winner) {
+                    winner = findWinner();
+                }
+            }
+            return;
+        }
+
+        // takes or overwrites the tile
+        final int PREVIOUS = owners[SLOT] == VACANT ? EMPTY_TILE_KEY : toKey(owners[SLOT]);
+        if (owners[SLOT] == VACANT) {
+            keys[SLOT] = KEY;
+            size++;
+        }
+        owners[SLOT] = toOwner(pawn);
+        if (size * 2 > keys.length) {
+            grow();
+        }
+
+        // an overwritten winner has to be looked for again, otherwise only the new pawn can win
+        if (PREVIOUS != EMPTY_TILE_KEY && PREVIOUS == winner) {
+            winner = findWinner();
+        } else if (winner == EMPTY_TILE_KEY && completesLine(y, x, pawn)) {
+            winner = pawn;
+        }
+    }
+
+    /**
+     * Gets the specified tile
+     * @param y the y-coordinate of the tile
+     * @param x the x-coordinate of the tile
+     * @return the tile
+     */
+    int getTile(int y, int x) {
+        final byte OWNER = owners[find(key(y, x))];
+        return OWNER == VACANT ? EMPTY_TILE_KEY : toKey(OWNER);
+    }
+
+    /**
+     * Determines whether a tile on the board is playable (i.e. :if it is empty)
+     * @param y the y-coordinates of the tile
+     * @param x the x-coordinates of the tile
+     * @return whether the tile is playable
+     */
+    public boolean isPlayableTile(int y, int x) {
+        return getTile(y, x) == EMPTY_TILE_KEY;
+    }
+
+    /**
+     * Checks the board for any empty tiles
+     * @return always true, the board having no bounds
+     */
+    boolean hasSpaceLeft() {
+        return true;
+    }
+
+    /**
+     * Checks for win conditions for both players
+     * <br>
+     * The answer is kept up to date as pawns are placed and costs no scan of the board
+     * <ul>
+     *     <li>EMPTY_TILE_KEY : no player has won
+     *     <li>PLAYER_O_KEY : player O has won
+     *     <li>PLAYER_X_KEY : player X has won
+     * </ul>
+     * @return which player has won or if none has won
+     */
+    public int winingPlayer() {
+        return winner;
+    }
+
+    /**
+     * Determines whether placing a pawn would give its player WIN_LENGTH aligned pawns
+     * @param y the y-coordinates of the tile
+     * @param x the x-coordinates of the tile
+     * @param pawn the player placing the pawn
+     * @return whether the pawn would complete a line
+     */
+    boolean completesLine(int y, int x, int pawn) {
+        return runLength(y, x, 0, 1, pawn) >= WIN_LENGTH
+            || runLength(y, x, 1, 0, pawn) >= WIN_LENGTH
+            || runLength(y, x, 1, 1, pawn) >= WIN_LENGTH
+            || runLength(y, x, 1, -1, pawn) >= WIN_LENGTH;
+    }
+
+    /**
+     * Measures the run of pawns a tile would belong to along one direction
+     * <br>
+     * The run is never followed further than WIN_LENGTH - 1 tiles on either side, nor past the int coordinates
+     * @param y the y-coordinates of the tile
+     * @param x the x-coordinates of the tile
+     * @param dy the vertical step of the direction
+     * @param dx the horizontal step of the direction
+     * @param pawn the player owning the run
+     * @return the length of the run, including the tile itself
+     */
+    private int runLength(int y, int x, int dy, int dx, int pawn) {
+
+        int length = 1;
+
+        // follows the run forwards...
+        for (long i = 1, curY = (long) y + dy, curX = (long) x + dx; i < WIN_LENGTH; i++, curY += dy, curX += dx) {
+            if (curY != (int) curY || curX != (int) curX || getTile((int) curY, (int) curX) != pawn) {
+                break;
+            }
+            length++;
+        }
+
+        // ...then backwards
+        for (long i = 1, curY = (long) y - dy, curX = (long) x - dx; i < WIN_LENGTH; i++, curY -= dy, curX -= dx) {
+            if (curY != (int) curY || curX != (int) curX || getTile((int) curY, (int) curX) != pawn) {
+                break;
+            }
+            length++;
+        }
+
+        return length;
+    }
+
+    /**
+     * Looks through every pawn for a winning line, once a pawn of the winner was removed
+     * @return the player owning a winning line, or the empty tile key if there is none
+     */
+    private int findWinner() {
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (owners[slot] != VACANT) {
+                final int PAWN = toKey(owners[slot]);
+                if (completesLine((int) (keys[slot] >> 32), (int) keys[slot], PAWN)) {
+                    return PAWN;
+                }
+            }
+        }
+        return EMPTY_TILE_KEY;
+    }
+
+    /**
+     * Packs the coordinates of a tile into a single key
+     * @param y the y-coordinates of the tile
+     * @param x the x-coordinates of the tile
+     * @return the key of the tile
+     */
+    private static long key(int y, int x) {
+        return (long) y << 32 | x & 0xFFFFFFFFL;
+    }
+
+    /**
+     * Spreads a key over the slots of the map
+     * @param key the key of a tile
+     * @return the slot the key would ideally sit in
+     */
+    private int home(long key) {
+        // multiplies by the golden ratio and keeps the highest bits
+        return (int) (key * 0x9E3779B97F4A7C15L >>> 64 - Integer.numberOfTrailingZeros(keys.length));
+    }
+
+    /**
+     * Finds the slot of a tile
+     * @param key the key of the tile
+     * @return the slot holding the key, or the vacant slot where it would go
+     */
+    private int find(long key) {
+        final int MASK = keys.length - 1;
+        int slot = home(key);
+        while (owners[slot] != VACANT && keys[slot] != key) {
+            slot = slot + 1 & MASK;
+        }
+        return slot;
+    }
+
+    /**
+     * Vacates a slot, shifting back the keys which probed past it so that no tombstone is left
+     * @param slot the slot to vacate
+     */
+    private void remove(int slot) {
+
+        final int MASK = keys.length - 1;
+        int gap = slot;
+        size--;
+
+        for (int next = gap + 1 & MASK; owners[next] != VACANT; next = next + 1 & MASK) {
+            // a key may fill the gap unless its home lies strictly between the gap and its slot
+            final int HOME = home(keys[next]);
+            if ((next - HOME & MASK) >= (next - gap & MASK)) {
+                keys[gap] = keys[next];
+                owners[gap] = owners[next];
+                gap = next;
+            }
+        }
+        owners[gap] = VACANT;
+    }
+
+    /**
+     * Doubles the number of slots of the map
+     */
+    private void grow() {
+
+        final long[] OLD_KEYS = keys;
+        final byte[] OLD_OWNERS = owners;
+        keys = new long[OLD_KEYS.length * 2];
+        owners = new byte[OLD_OWNERS.length * 2];
+
+        // moves every key to its slot in the larger map
+        for (int slot = 0; slot < OLD_KEYS.length; slot++) {
+            if (OLD_OWNERS[slot] != VACANT) {
+                final int TARGET = find(OLD_KEYS[slot]);
+                keys[TARGET] = OLD_KEYS[slot];
+                owners[TARGET] = OLD_OWNERS[slot];
+            }
+        }
+    }
+
+    /**
+     * Converts a key of the board into the owner stored in the map
+     * @param pawn the key of a player
+     * @return the owner of the player's pawns
+     */
+    private byte toOwner(int pawn) {
+        return pawn == PLAYER_X_KEY ? PLAYER_X : PLAYER_O;
+    }
+
+    /**
+     * Converts an owner stored in the map into the key of the board
+     * @param owner the owner of a pawn
+     * @return the key of the owner's player
+     */
+    private int toKey(byte owner) {
+        return owner == PLAYER_X ? PLAYER_X_KEY : PLAYER_O_KEY;
+    }
+
+    /**
+     * Removes every pawn and goes back to the first turn
+     */
+    void clear() {
+        Arrays.fill(owners, VACANT);
+        size = 0;
+        turn = 0;
+        winner = EMPTY_TILE_KEY;
+    }
+}
@@ -0,0 +1,218 @@
+package TickTackToe;
+
+/**
+ * Maps square boards of up to 8x8 tiles onto their 8 rotations and reflections
+ * <br>
+ * Positions are handled as the packed bits of a {@link BitBoard}. Of all the equivalent positions,
+ * the canonical one is the one with the smallest (player X bits, player O bits) pair, so caches can keep a
+ * single entry per class of equivalent positions and map moves back with the transform used to get there.
+ * <br>
+ * Transforms are numbered as follows :
+ * <ul>
+ *     <li>0 : identity
+ *     <li>1 : quarter turn clockwise
+ *     <li>2 : half turn
+ *     <li>3 : quarter turn anticlockwise
+ *     <li>4 : reflection across the vertical axis
+ *     <li>5 : reflection across the horizontal axis
+ *     <li>6 : reflection across the downwards diagonal
+ *     <li>7 : reflection across the upwards diagonal
+ * </ul>
+ */
+public class Symmetry {
+
+    // the number of rotations and reflections of a square
+    public static final int TRANSFORMS = 8;
+
+    // the transform undoing each transform
+    private static final int[] INVERSE = {0, 3, 2, 1, 4, 5, 6, 7};
+
+    // symmetries already computed, by board dimensions
+    private static final Symmetry[] CACHE = new Symmetry[BitBoard.MAX_PACKED_DIMENSIONS + 1];
+
+    // the width and height of the board
+    private final int BOARD_DIMENSIONS;
+
+    // mask of the bits of a single row
+    private final long ROW_MASK;
+
+    // where each tile goes under each transform
+    private final int[][] TILE_MAP;
+
+    // the transformed bits of every possible row content, by transform and row
+    private final long[][][] ROW_TABLES;
+
+    /**
+     * Gets the symmetries of boards of the given size
+     * @param dimension the size of the board
+     * @return the symmetries of the board
+     */
+    public static synchronized Symmetry forDimension(int dimension) {
+
+        // if the board does not fit in packed bits...
+        if (dimension < 1 || dimension > BitBoard.MAX_PACKED_DIMENSIONS) {
+            // throws an error
+            throw new IllegalArgumentException(String.format("Board dimensions must be comprised between 1 and %s",
+                                                             BitBoard.MAX_PACKED_DIMENSIONS));
+        }
+
+        // computes the tables on first use
+        if (CACHE[dimension] == null) {
+            CACHE[dimension] = new Symmetry(dimension);
+        }
+        return CACHE[dimension];
+    }
+
+    /**
+     * Computes the symmetry tables of boards of the given size
+     * @param dimension the size of the board
+     */
+    private Symmetry(int dimension) {
+
+        this.BOARD_DIMENSIONS = dimension;
+        this.ROW_MASK = (1L << dimension) - 1;
+
+        final int TILES = dimension * dimension;
+        final int LAST = dimension - 1;
+
+        // maps every tile under every transform
+        TILE_MAP = new int[TRANSFORMS][TILES];
+        for (int y = 0; y < dimension; y++) {
+            for (int x = 0; x < dimension; x++) {
+                final int TILE = y * dimension + x;
+                TILE_MAP[0][TILE] = y * dimension + x;
+                TILE_MAP[1][TILE] = x * dimension + LAST - y;
+                TILE_MAP[2][TILE] = (LAST - y) * dimension + LAST - x;
+                TILE_MAP[3][TILE] = (LAST - x) * dimension + y;
+                TILE_MAP[4][TILE] = y * dimension + LAST - x;
+                TILE_MAP[5][TILE] = (LAST - y) * dimension + x;
+                TILE_MAP[6][TILE] = x * dimension + y;
+                TILE_MAP[7][TILE] = (LAST - x) * dimension + LAST - y;
+            }
+        }
+
+        // transforms every possible content of every row once and for all
+        ROW_TABLES = new long[TRANSFORMS][dimension][1 << dimension];
+        for (int transform = 0; transform < TRANSFORMS; transform++) {
+            for (int y = 0; y < dimension; y++) {
+                final long[] TABLE = ROW_TABLES[transform][y];
+                for (int row = 1; row < TABLE.length; row++) {
+                    // builds on the row without its lowest tile
+                    final int X = Integer.numberOfTrailingZeros(row);
+                    TABLE[row] = TABLE[row & row - 1] | 1L << TILE_MAP[transform][y * dimension + X];
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the board dimensions
+     * @return the board dimensions
+     */
+    public int getBOARD_DIMENSIONS() {
+        return BOARD_DIMENSIONS;
+    }
+
+    /**
+     * Applies a transform to the pawns of one player
+     * @param bits the player's pawns
+     * @param transform the transform to apply
+     * @return the transformed pawns
+     */
+    public long transform(long bits, int transform) {
+
+        final long[][] TABLES = ROW_TABLES[transform];
+        long transformed = 0;
+
+        // transforms the board row by row
+        for (int y = 0, shift = 0; y < BOARD_DIMENSIONS; y++, shift += BOARD_DIMENSIONS) {
+            transformed |= TABLES[y][(int) (bits >>> shift & ROW_MASK)];
+        }
+
+        return transformed;
+    }
+
+    /**
+     * Finds the canonical form of a position
+     * @param xBits the pawns of player X
+     * @param oBits the pawns of player O
+     * @param canonical receives the canonical pawns of player X then player O
+     * @return the transform which maps the position onto its canonical form
+     */
+    public int canonicalise(long xBits, long oBits, long[] canonical) {
+
+        long bestX = xBits;
+        long bestO = oBits;
+        int bestTransform = 0;
+
+        // keeps the smallest of every transformed position
+        for (int transform = 1; transform < TRANSFORMS; transform++) {
+            final long X = transform(xBits, transform);
+
+            // the O pawns only need transforming when the X pawns tie
+            final int COMPARISON = Long.compareUnsigned(X, bestX);
+            if (COMPARISON > 0) {
+                continue;
+            }
+            final long O = transform(oBits, transform);
+            if (COMPARISON < 0 || Long.compareUnsigned(O, bestO) < 0) {
+                bestX = X;
+                bestO = O;
+                bestTransform = transform;
+            }
+        }
+
+        canonical[0] = bestX;
+        canonical[1] = bestO;
+        return bestTransform;
+    }
+
+    /**
+     * Finds the canonical form of a packed board
+     * @param board the board to canonicalise
+     * @param canonical receives the canonical pawns of player X then player O
+     * @return the transform which maps the board onto its canonical form
+     */
+    public int canonicalise(BitBoard board, long[] canonical) {
+        return canonicalise(board.getPlayerXBits(), board.getPlayerOBits(), canonical);
+    }
+
+    /**
+     * Packs both players' pawns into a single key, for boards of up to 5x5 tiles
+     * @param xBits the pawns of player X
+     * @param oBits the pawns of player O
+     * @return the key of the position
+     */
+    public static long packedKey(long xBits, long oBits) {
+        return xBits << 32 | oBits;
+    }
+
+    /**
+     * Maps a move of the original position onto the transformed one
+     * @param move the move on the original position
+     * @param transform the transform applied to the position
+     * @return the move on the transformed position
+     */
+    public int transformMove(int move, int transform) {
+        return TILE_MAP[transform][move];
+    }
+
+    /**
+     * Maps a move of the transformed position back onto the original one
+     * @param move the move on the transformed position
+     * @param transform the transform applied to the position
+     * @return the move on the original position
+     */
+    public int inverseMove(int move, int transform) {
+        return TILE_MAP[INVERSE[transform]][move];
+    }
+
+    /**
+     * Gets the transform undoing a transform
+     * @param transform the transform to undo
+     * @return the inverse transform
+     */
+    public static int inverse(int transform) {
+        return INVERSE[transform];
+    }
+}
@@ -0,0 +1,330 @@
+package TickTackToe;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The perfect-play result of every reachable position of a small board, read from a memory-mapped file
+ * <br>
+ * Positions are ranked by reading the board as a base 3 number, one digit per tile (0 empty, 1 X, 2 O),
+ * the first tile being the lowest digit. The file holds a header followed by one byte per rank :
+ * <ul>
+ *     <li>bits 0 to 1 : result for the player whose turn it is (0 when the position cannot be reached)
+ *     <li>bits 2 to 7 : number of plies until the game ends with perfect play
+ * </ul>
+ * The file is mapped read-only, so opening it runs no search and every process on a host shares the same pages
+ */
+public class Tablebase {
+
+    // results of a position for the player whose turn it is
+    public static final int UNREACHABLE = 0;
+    public static final int WIN = 1;
+    public static final int LOSS = 2;
+    public static final int DRAW = 3;
+
+    // the largest number of tiles a tablebase can cover (3^16 positions take up 43 MB)
+    public static final int MAX_TILES = 16;
+
+    // identifies tablebase files : "TTTB"
+    private static final int MAGIC = 0x54545442;
+    private static final int VERSION = 1;
+
+    // magic, version, width, height and win length
+    private static final int HEADER_BYTES = 5 * Integer.BYTES;
+
+    // the board the tablebase was generated for
+    private final int BOARD_WIDTH;
+    private final int BOARD_HEIGHT;
+    private final int WIN_LENGTH;
+
+    // the value of the digit of each tile
+    private final int[] POWERS;
+
+    // one byte per position rank
+    private final MappedByteBuffer ENTRIES;
+
+    /**
+     * Creates a lookup over a mapped file
+     * @param width the number of columns of the board
+     * @param height the number of rows of the board
+     * @param winLength the number of aligned pawns needed to win
+     * @param entries the mapped positions
+     */
+    private Tablebase(int width, int height, int winLength, MappedByteBuffer entries) {
+        this.BOARD_WIDTH = width;
+        this.BOARD_HEIGHT = height;
+        this.WIN_LENGTH = winLength;
+        this.POWERS = powers(width * height);
+        this.ENTRIES = entries;
+    }
+
+    /**
+     * Solves every reachable position of a board and writes them to a file
+     * @param width the number of columns of the board
+     * @param height the number of rows of the board
+     * @param winLength the number of aligned pawns needed to win
+     * @param file the file to write
+     * @throws IOException if the file could not be written
+     */
+    public static void generate(int width, int height, int winLength, Path file) throws IOException {
+
+        // if the board has too many positions...
+        if (width < 1 || height < 1 || width * height > MAX_TILES) {
+            // throws an error
+            throw new IllegalArgumentException(String.format("Tablebases cover boards of at most %s tiles", MAX_TILES));
+        }
+
+        // solves every position reachable from the empty board
+        final TickTackToe GAME = new TickTackToe(width, height, winLength, 0, -1, 1);
+        final int[] POWERS = powers(width * height);
+        final byte[] ENTRIES = new byte[POWERS[width * height]];
+        solve(GAME, 0, POWERS, ENTRIES);
+
+        // writes the header and the positions
+        final ByteBuffer HEADER = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        HEADER.putInt(MAGIC).putInt(VERSION).putInt(width).putInt(height).putInt(winLength).flip();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                    StandardOpenOption.TRUNCATE_EXISTING)) {
+            final ByteBuffer DATA = ByteBuffer.wrap(ENTRIES);
+            while (HEADER.hasRemaining()) {
+                channel.write(HEADER);
+            }
+            while (DATA.hasRemaining()) {
+                channel.write(DATA);
+            }
+        }
+    }
+
+    /**
+     * Maps a tablebase file into memory
+     * @param file the file generated by {@link #generate(int, int, int, Path)}
+     * @return the lookup over the file
+     * @throws IOException if the file could not be read or is not a tablebase
+     */
+    public static Tablebase open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+
+            // checks the header
+            final ByteBuffer HEADER = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            while (HEADER.hasRemaining()) {
+                // stops short if the file ends within the header
+                if (channel.read(HEADER, HEADER.position()) < 0) {
+                    break;
+                }
+            }
+            HEADER.flip();
+            if (HEADER.remaining() < HEADER_BYTES || HEADER.getInt() != MAGIC || HEADER.getInt() != VERSION) {
+                throw new IOException(String.format("%s is not a tablebase", file));
+            }
+            final int WIDTH = HEADER.getInt();
+            final int HEIGHT = HEADER.getInt();
+            final int WIN_LENGTH = HEADER.getInt();
+            if (WIDTH < 1 || HEIGHT < 1 || WIDTH * HEIGHT > MAX_TILES) {
+                throw new IOException(String.format("%s has invalid board dimensions", file));
+            }
+
+            // the mapping stays valid once the channel is closed
+            final long SIZE = powers(WIDTH * HEIGHT)[WIDTH * HEIGHT];
+            if (channel.size() != HEADER_BYTES + SIZE) {
+                throw new IOException(String.format("%s is truncated", file));
+            }
+            return new Tablebase(WIDTH, HEIGHT, WIN_LENGTH, channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES, SIZE));
+        }
+    }
+
+    /**
+     * Gets the number of columns of the board
+     * @return the board width
+     */
+    public int getBOARD_WIDTH() {
+        return BOARD_WIDTH;
+    }
+
+    /**
+     * Gets the number of rows of the board
+     * @return the board height
+     */
+    public int getBOARD_HEIGHT() {
+        return BOARD_HEIGHT;
+    }
+
+    /**
+     * Gets the number of aligned pawns needed to win
+     * @return the win length
+     */
+    public int getWIN_LENGTH() {
+        return WIN_LENGTH;
+    }
+
+    /**
+     * Looks up a position
+     * @param game the position to look up
+     * @return the packed entry of the position, read with {@link #resultOf(int)} and {@link #distanceOf(int)}
+     */
+    public int probe(TickTackToe game) {
+        return ENTRIES.get(rank(game)) & 0xFF;
+    }
+
+    /**
+     * Finds a perfect move : the fastest win, else a draw, else the slowest loss
+     * @param game the position to find a move for
+     * @return the best move (see {@link Board#toMove(int, int)}), or -1 if the game is over
+     */
+    public int bestMove(TickTackToe game) {
+
+        if (game.winner() != game.EMPTY_TILE_KEY) {
+            return -1;
+        }
+
+        final int RANK = rank(game);
+        final int DIGIT = game.curPlayerTurn() == game.PLAYER_X_KEY ? 1 : 2;
+
+        int bestMove = -1;
+        int bestValue = Integer.MIN_VALUE;
+        for (int move = 0; move < POWERS.length - 1; move++) {
+            if (game.BOARD[game.moveY(move)][game.moveX(move)] != game.EMPTY_TILE_KEY) {
+                continue;
+            }
+
+            // the child is scored from the opponent's point of view
+            final int VALUE = -value(ENTRIES.get(RANK + DIGIT * POWERS[move]) & 0xFF);
+            if (VALUE > bestValue) {
+                bestValue = VALUE;
+                bestMove = move;
+            }
+        }
+        return bestMove;
+    }
+
+    /**
+     * Gets the result of an entry
+     * @param entry the packed entry
+     * @return {@link #WIN}, {@link #LOSS}, {@link #DRAW} or {@link #UNREACHABLE}
+     */
+    public static int resultOf(int entry) {
+        return entry & 0x3;
+    }
+
+    /**
+     * Gets the number of plies until the game ends with perfect play
+     * @param entry the packed entry
+     * @return the distance to the result
+     */
+    public static int distanceOf(int entry) {
+        return entry >>> 2;
+    }
+
+    /**
+     * Ranks a position
+     * @param game the position to rank
+     * @return the rank of the position
+     */
+    private int rank(TickTackToe game) {
+
+        // if the game is not played on the tablebase's board...
+        if (game.BOARD_WIDTH != BOARD_WIDTH || game.BOARD_HEIGHT != BOARD_HEIGHT || game.WIN_LENGTH != WIN_LENGTH) {
+            // throws an error
+            throw new IllegalArgumentException(String.format("Tablebase covers %sx%s boards with a win length of %s",
+                                                             BOARD_WIDTH, BOARD_HEIGHT, WIN_LENGTH));
+        }
+
+        int rank = 0;
+        for (int move = 0; move < POWERS.length - 1; move++) {
+            final int TILE = game.BOARD[game.moveY(move)][game.moveX(move)];
+            if (TILE == game.PLAYER_X_KEY) {
+                rank += POWERS[move];
+            } else if (TILE == game.PLAYER_O_KEY) {
+                rank += 2 * POWERS[move];
+            }
+        }
+        return rank;
+    }
+
+    /**
+     * Orders entries from the point of view of the player whose turn it is :
+     * quicker wins first, then draws, then slower losses
+     * @param entry the packed entry
+     * @return the value of the entry
+     */
+    private static int value(int entry) {
+        switch (resultOf(entry)) {
+            case WIN:
+                return 1000 - distanceOf(entry);
+            case LOSS:
+                return -1000 + distanceOf(entry);
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * Solves a position and every position reachable from it
+     * @param game the position to solve, left unchanged
+     * @param rank the rank of the position
+     * @param powers the value of the digit of each tile
+     * @param entries receives the entry of every solved position
+     * @return the entry of the position
+     */
+    private static int solve(TickTackToe game, int rank, int[] powers, byte[] entries) {
+
+        // the position was reached through another move order
+        if (entries[rank] != UNREACHABLE) {
+            return entries[rank] & 0xFF;
+        }
+
+        int entry;
+        if (game.winner() != game.EMPTY_TILE_KEY) {
+            // the previous move won the game
+            entry = LOSS;
+        } else if (!game.hasSpaceLeft()) {
+            // the previous move filled the board
+            entry = DRAW;
+        } else {
+            // keeps the best move for the player whose turn it is
+            final int DIGIT = game.curPlayerTurn() == game.PLAYER_X_KEY ? 1 : 2;
+            int bestValue = Integer.MIN_VALUE;
+            int bestChild = 0;
+            for (int move = 0; move < powers.length - 1; move++) {
+                if (game.BOARD[game.moveY(move)][game.moveX(move)] != game.EMPTY_TILE_KEY) {
+                    continue;
+                }
+                game.makeMove(move);
+                final int CHILD = solve(game, rank + DIGIT * powers[move], powers, entries);
+                game.unmakeMove(move);
+
+                // draws prefer the quickest ending
+                final int VALUE = -value(CHILD) * 64 - distanceOf(CHILD);
+                if (VALUE > bestValue) {
+                    bestValue = VALUE;
+                    bestChild = CHILD;
+                }
+            }
+
+            // the result flips and the game lasts one more ply
+            final int RESULT = resultOf(bestChild) == WIN ? LOSS : resultOf(bestChild) == LOSS ? WIN : DRAW;
+            entry = RESULT | distanceOf(bestChild) + 1 << 2;
+        }
+
+        entries[rank] = (byte) entry;
+        return entry;
+    }
+
+    /**
+     * Computes the value of the digit of each tile
+     * @param tiles the number of tiles of the board
+     * @return the powers of 3 up to and including 3^tiles
+     */
+    private static int[] powers(int tiles) {
+        final int[] POWERS = new int[tiles + 1];
+        POWERS[0] = 1;
+        for (int i = 1; i <= tiles; i++) {
+            POWERS[i] = 3 * POWERS[i - 1];
+        }
+        return POWERS;
+    }
+}
@@ -1,5 +1,7 @@
 package TickTackToe;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.*;
 
 /**
@@ -11,11 +13,39 @@ public class TickTackToe extends Board {
     protected final int PLAYER_X_KEY;
     protected final int PLAYER_O_KEY;
 
+    // the number of aligned pawns a player needs to win
+    protected final int WIN_LENGTH;
+
+    // whether a win requires a full row, column or main diagonal of a square board
+    // those lines are tracked with counters, every other rule looks for runs around the last pawn
+    private final boolean FULL_LINE_RULES;
+
     // the current turn
     // player X plays on even turns
     // player O plays on odd turns
     protected int turn = 0;
 
+    // how many pawns each player has along every row, column and main diagonal
+    // index 0 holds player X's counts, index 1 holds player O's
+    private final int[][] ROW_COUNTS = new int[2][BOARD_HEIGHT];
+    private final int[][] COLUMN_COUNTS = new int[2][BOARD_WIDTH];
+    private final int[] DOWN_DIAG_COUNTS = new int[2];
+    private final int[] UP_DIAG_COUNTS = new int[2];
+
+    // the first player to complete a line, or the empty tile key while no player has
+    private int winner = EMPTY_TILE_KEY;
+
+    // the turn on which the winner completed its line
+    private int winningTurn = -1;
+
+    // the System.nanoTime() the game started at
+    private long startNanos = System.nanoTime();
+
+    // every move played, in order : the first turn entries lead to the current position
+    // and the entries up to historyLength are moves taken back which can be played again
+    private final int[] HISTORY = new int[BOARD_WIDTH * BOARD_HEIGHT];
+    private int historyLength = 0;
+
     // the singleton instance of the board
     protected static TickTackToe tickTackToe_Instance = null;
 
@@ -33,6 +63,10 @@ public class TickTackToe extends Board {
         // O = 0
         this.PLAYER_X_KEY = 1;
         this.PLAYER_O_KEY = 0;
+
+        // a full line is needed to win
+        this.WIN_LENGTH = dimension;
+        this.FULL_LINE_RULES = true;
     }
 
 
@@ -53,8 +87,39 @@ public class TickTackToe extends Board {
      * @param PLAYER_X_KEY integer representing player O in the board
      */
     protected TickTackToe(int dimension, int EMPTY_TILE_KEY, int PLAYER_O_KEY, int PLAYER_X_KEY) {
+        this(dimension, dimension, dimension, EMPTY_TILE_KEY, PLAYER_O_KEY, PLAYER_X_KEY);
+    }
 
-        super(dimension, EMPTY_TILE_KEY);
+    /**
+     * Creates a game on a rectangular board where players must align a given number of pawns
+     * along any row, column or diagonal
+     * <br>
+     * Valid Key Combination :
+     * <br>
+     * {empty tile key, player O key, player X key}
+     * <ul>
+     *      <li>-1, 0, 1
+     *      <li>0, -1, 1
+     *      <li>0, 1, -1
+     * </ul>
+     * @param width the number of columns of the board
+     * @param height the number of rows of the board
+     * @param winLength the number of aligned pawns needed to win
+     * @param EMPTY_TILE_KEY integer representing empty tiles in the board
+     * @param PLAYER_O_KEY integer representing player X in the board
+     * @param PLAYER_X_KEY integer representing player O in the board
+     */
+    protected TickTackToe(int width, int height, int winLength,
+                          int EMPTY_TILE_KEY, int PLAYER_O_KEY, int PLAYER_X_KEY) {
+
+        super(width, height, EMPTY_TILE_KEY);
+
+        // if no line of the board is long enough to win...
+        if (winLength < 1 || winLength > BOARD_DIMENSIONS) {
+            // throws an error
+            throw new IllegalArgumentException(String.format("Win length must be comprised between 1 and %s",
+                                                             BOARD_DIMENSIONS));
+        }
 
         // if the player and empty tile keys the same...
         if (PLAYER_X_KEY == PLAYER_O_KEY || PLAYER_X_KEY == EMPTY_TILE_KEY || PLAYER_O_KEY == EMPTY_TILE_KEY) {
@@ -83,13 +148,48 @@ public class TickTackToe extends Board {
         // assigns the player keys
         this.PLAYER_X_KEY = PLAYER_X_KEY;
         this.PLAYER_O_KEY = PLAYER_O_KEY;
+
+        // assigns the win condition
+        this.WIN_LENGTH = winLength;
+        this.FULL_LINE_RULES = width == height && winLength == width;
+    }
+
+    /**
+     * Creates a copy of another game, including its turn and win state
+     * @param game the game to copy
+     */
+    protected TickTackToe(TickTackToe game) {
+
+        super(game);
+
+        // copies the rules and player keys
+        this.PLAYER_X_KEY = game.PLAYER_X_KEY;
+        this.PLAYER_O_KEY = game.PLAYER_O_KEY;
+        this.WIN_LENGTH = game.WIN_LENGTH;
+        this.FULL_LINE_RULES = game.FULL_LINE_RULES;
+
+        // copies the progress of the game
+        this.turn = game.turn;
+        this.winner = game.winner;
+        this.winningTurn = game.winningTurn;
+        this.startNanos = game.startNanos;
+        System.arraycopy(game.HISTORY, 0, HISTORY, 0, game.historyLength);
+        this.historyLength = game.historyLength;
+        for (int player = 0; player < 2; player++) {
+            System.arraycopy(game.ROW_COUNTS[player], 0, ROW_COUNTS[player], 0, BOARD_HEIGHT);
+            System.arraycopy(game.COLUMN_COUNTS[player], 0, COLUMN_COUNTS[player], 0, BOARD_WIDTH);
+        }
+        System.arraycopy(game.DOWN_DIAG_COUNTS, 0, DOWN_DIAG_COUNTS, 0, 2);
+        System.arraycopy(game.UP_DIAG_COUNTS, 0, UP_DIAG_COUNTS, 0, 2);
     }
 
     /**
      * Gets the singleton instance of the Board class
      * @param dimension the size of the board
      * @return the singleton of the Board class
+     * @deprecated a JVM can only host one singleton game, use {@link GameSessions} instead
      */
+    @Deprecated
     static TickTackToe getTickTackToe_Instance(int dimension) {
         // if the singleton hasn't been created yet...
         if(tickTackToe_Instance == null) {
@@ -117,7 +217,9 @@ public class TickTackToe extends Board {
      * @param PLAYER_O_KEY integer representing player X in the board
      * @param PLAYER_X_KEY integer representing player O in the board
      * @return the singleton of the Board class
+     * @deprecated a JVM can only host one singleton game, use {@link GameSessions} instead
      */
+    @Deprecated
     public static TickTackToe getTickTackToe_Instance(int dimension, int EMPTY_TILE_KEY, int PLAYER_O_KEY, int PLAYER_X_KEY) {
         // if the singleton hasn't been created yet...
         if(tickTackToe_Instance == null) {
@@ -129,17 +231,62 @@ public class TickTackToe extends Board {
         return tickTackToe_Instance;
     }
 
+    /**
+     * Gets the singleton instance of the Board class for an m,n,k game
+     * <br>
+     * Valid Key Combination :
+     * <br>
+     * {empty tile key, player O key, player X key}
+     * <ul>
+     *      <li>-1, 0, 1
+     *      <li>0, -1, 1
+     *      <li>0, 1, -1
+     * </ul>
+     * @param width the number of columns of the board
+     * @param height the number of rows of the board
+     * @param winLength the number of aligned pawns needed to win
+     * @param EMPTY_TILE_KEY integer representing empty tiles in the board
+     * @param PLAYER_O_KEY integer representing player X in the board
+     * @param PLAYER_X_KEY integer representing player O in the board
+     * @return the singleton of the Board class
+     * @deprecated a JVM can only host one singleton game, use {@link GameSessions} instead
+     */
+    @Deprecated
+    public static TickTackToe getTickTackToe_Instance(int width, int height, int winLength,
+                                                      int EMPTY_TILE_KEY, int PLAYER_O_KEY, int PLAYER_X_KEY) {
+        // if the singleton hasn't been created yet...
+        if(tickTackToe_Instance == null) {
+            // calls the class constructor
+            tickTackToe_Instance = new TickTackToe(width, height, winLength, EMPTY_TILE_KEY, PLAYER_O_KEY, PLAYER_X_KEY);
+        }
+
+        // returns the singleton
+        return tickTackToe_Instance;
+    }
+
+    /**
+     * Gets the number of aligned pawns needed to win
+     * @return the win length
+     */
+    public int getWIN_LENGTH() {
+        return WIN_LENGTH;
+    }
+
     /**
      * moves on to the next turn
+     * <br>
+     * Only moves may change the turn, which must stay in step with the history: see {@link #make(int)} and {@link #undo()}
      */
-    public void nextTurn() {
+    private void nextTurn() {
         turn++;
     }
 
     /**
      * Resets the turn to 0
+     * <br>
+     * Only a reset of the board may do so, see {@link #reset()}
      */
-    public void resetTurns() {
+    private void resetTurns() {
         turn = 0;
     }
 
@@ -160,7 +307,7 @@ public class TickTackToe extends Board {
      * </ul>
      * @return the player whose turn it is to play
      */
-    private int curPlayerTurn() {
+    int curPlayerTurn() {
         // it is X player's turn
         if (turn % 2 == 0) {
             return PLAYER_X_KEY;
@@ -190,48 +337,300 @@ public class TickTackToe extends Board {
     }
 
     /**
-     * Converts a tile into string form
-     * @param x the x-coordinates of the tile
-     * @param y the y-coordinates of the tile
-     * @return the tile under string form
+     * Allows the player whose turn it is to place a pawn on the board
+     * @param x the x-coordinates of the pawn
+     * @param y the y-coordinates of the pawn
      */
-    private String convertTile(int y, int x) {
+    public void play(int x, int y) {
+        // if the tile is empty...
+        if (isPlayableTile(y, x)){
+            // places the corresponding player tile, recording it for the flight recorder and metrics
+            final GameEvents.MoveEvent EVENT = new GameEvents.MoveEvent();
+            EVENT.begin();
+            final int WINNER = winner();
+            placePawn(y, x);
+            GameEvents.moved(EVENT, this, x, y, WINNER);
+        }
+    }
 
-        int tile = getTile(y, x);
+    /**
+     * Allows the player whose turn it is to place a pawn on the board
+     * <br>
+     * Unlike {@link #play(int, int)}, the move is not recorded as an event and a taken tile is an error
+     * @param move the move to play (see {@link #toMove(int, int)})
+     */
+    public void make(int move) {
 
-        // tile is empty
-        if (tile == EMPTY_TILE_KEY) {
-            return "_";
+        // if the move is not on an empty tile...
+        if (move < 0 || move >= HISTORY.length || BOARD[moveY(move)][moveX(move)] != EMPTY_TILE_KEY) {
+            // throws an error
+            throw new IllegalArgumentException(String.format("Move %s is not on an empty tile", move));
         }
-        // tile belongs to player O
-        else if(tile == PLAYER_O_KEY) {
-            return "O";
+
+        makeMove(move);
+    }
+
+    /**
+     * Takes back the last move played, restoring the tile, turn, line counters, winner, hash and free tiles
+     * <br>
+     * The move can be played again with {@link #redo()} until another move is played
+     * @param move the last move played
+     */
+    public void unmake(int move) {
+
+        // if the move is not the last one played...
+        if (turn == 0 || HISTORY[turn - 1] != move) {
+            // throws an error
+            throw new IllegalArgumentException(String.format("Move %s is not the last move played", move));
         }
-        // tile belongs to player X
-        else if(tile == PLAYER_X_KEY){
-            return "X";
+
+        unmakeMove(move);
+    }
+
+    /**
+     * Takes back the last move played
+     * @return the move taken back, or -1 if no move was played
+     */
+    public int undo() {
+
+        // if there is nothing to take back...
+        if (turn == 0) {
+            return -1;
         }
-        // tile is invalid (does not belong to any player and is not empty)
-        else {
-            // displays an error message
-            throw new IllegalArgumentException("Specified tile is invalid");
+
+        final int MOVE = HISTORY[turn - 1];
+        unmakeMove(MOVE);
+        return MOVE;
+    }
+
+    /**
+     * Plays again the last move taken back
+     * @return the move played, or -1 if there is no move to play again
+     */
+    public int redo() {
+
+        // if no move was taken back since the last one played...
+        if (turn >= historyLength) {
+            return -1;
         }
 
-        // return Integer.toString(BOARD[y][x]);
+        final int MOVE = HISTORY[turn];
+        makeMove(MOVE);
+        return MOVE;
     }
 
     /**
-     * Allows the player whose turn it is to place a pawn on the board
+     * Takes back or plays again moves of the history until the game reaches a given turn
+     * @param turn the turn to go to, between 0 and the number of moves recorded
+     */
+    public void replay(int turn) {
+
+        // if the history does not reach that turn...
+        if (turn < 0 || turn > historyLength) {
+            // throws an error
+            throw new IllegalArgumentException(String.format("Turn must be comprised between 0 and %s",
+                                                             historyLength));
+        }
+
+        while (this.turn > turn) {
+            undo();
+        }
+        while (this.turn < turn) {
+            redo();
+        }
+    }
+
+    /**
+     * Gets the moves leading to the current position
+     * @return the moves, in the order they were played
+     */
+    public int[] getMoveHistory() {
+        return Arrays.copyOf(HISTORY, turn);
+    }
+
+    /**
+     * Gets the number of moves recorded, including the moves taken back which can be played again
+     * @return the length of the history
+     */
+    public int getHistoryLength() {
+        return historyLength;
+    }
+
+    /**
+     * Gets a move of the history without copying it
+     * @param turn the turn the move was played on, below the length of the history
+     * @return the move
+     */
+    int getMove(int turn) {
+        return HISTORY[turn];
+    }
+
+    /**
+     * Plays a move known to be on an empty tile, skipping the checks of {@link #play(int, int)}
+     * @param move the move to play
+     */
+    void makeMove(int move) {
+        placePawn(moveY(move), moveX(move));
+    }
+
+    /**
+     * Takes back the last move played, restoring the tile, turn and win state
+     * <br>
+     * The move is kept in the history, to be played again by {@link #redo()}
+     * @param move the last move played
+     */
+    void unmakeMove(int move) {
+
+        final int Y = moveY(move);
+        final int X = moveX(move);
+
+        // goes back to the turn of the move
+        turn--;
+
+        // removes the pawn from its lines and from the board
+        countPawn(Y, X, BOARD[Y][X], -1);
+        super.play(Y, X, EMPTY_TILE_KEY);
+
+        // forgets the winner if this move decided the game
+        if (turn == winningTurn) {
+            winner = EMPTY_TILE_KEY;
+            winningTurn = -1;
+        }
+    }
+
+    /**
+     * Brings the game back to its first turn, on an empty board
+     */
+    void reset() {
+
+        // empties the board
+        clear();
+        resetTurns();
+
+        // forgets every counted pawn and the winner
+        for (int player = 0; player < 2; player++) {
+            Arrays.fill(ROW_COUNTS[player], 0);
+            Arrays.fill(COLUMN_COUNTS[player], 0);
+        }
+        Arrays.fill(DOWN_DIAG_COUNTS, 0);
+        Arrays.fill(UP_DIAG_COUNTS, 0);
+        winner = EMPTY_TILE_KEY;
+        winningTurn = -1;
+        historyLength = 0;
+        startNanos = System.nanoTime();
+    }
+
+    /**
+     * Places the current player's pawn on an empty tile and moves on to the next turn
+     * @param y the y-coordinates of the pawn
      * @param x the x-coordinates of the pawn
+     */
+    private void placePawn(int y, int x) {
+
+        // records the move, forgetting the moves taken back unless it is the next of them
+        final int MOVE = toMove(x, y);
+        if (turn >= historyLength || HISTORY[turn] != MOVE) {
+            HISTORY[turn] = MOVE;
+            historyLength = turn + 1;
+        }
+
+        // places the corresponding player tile
+        final int PAWN = curPlayerTurn();
+        final boolean COMPLETES_LINE = completesLine(y, x, PAWN);
+        super.play(y, x, PAWN);
+        // updates the line counters of that player
+        countPawn(y, x, PAWN, 1);
+        // the first completed line decides the game
+        if (COMPLETES_LINE && winner == EMPTY_TILE_KEY) {
+            winner = PAWN;
+            winningTurn = turn;
+        }
+        // and moves on to the next turn
+        nextTurn();
+    }
+
+    /**
+     * Determines whether placing a pawn on an empty tile would complete a winning line
+     * <br>
+     * Only the lines going through that tile are looked at, so the cost does not depend on the board size
+     * @param y the y-coordinates of the tile
+     * @param x the x-coordinates of the tile
+     * @param pawn the player placing the pawn
+     * @return whether the pawn would win the game
+     */
+    boolean completesLine(int y, int x, int pawn) {
+
+        // full lines of a square board are known from the counters
+        if (FULL_LINE_RULES) {
+            final int PLAYER = pawn == PLAYER_X_KEY ? 0 : 1;
+            return ROW_COUNTS[PLAYER][y] + 1 == BOARD_DIMENSIONS
+                || COLUMN_COUNTS[PLAYER][x] + 1 == BOARD_DIMENSIONS
+                || x == y && DOWN_DIAG_COUNTS[PLAYER] + 1 == BOARD_DIMENSIONS
+                || x + y == BOARD_DIMENSIONS - 1 && UP_DIAG_COUNTS[PLAYER] + 1 == BOARD_DIMENSIONS;
+        }
+
+        // otherwise looks for a long enough run along the row, column and both diagonals
+        return runLength(y, x, 0, 1, pawn) >= WIN_LENGTH
+            || runLength(y, x, 1, 0, pawn) >= WIN_LENGTH
+            || runLength(y, x, 1, 1, pawn) >= WIN_LENGTH
+            || runLength(y, x, 1, -1, pawn) >= WIN_LENGTH;
+    }
+
+    /**
+     * Measures the run of pawns a tile would belong to along one direction
+     * <br>
+     * The run is never followed further than WIN_LENGTH - 1 tiles on either side
+     * @param y the y-coordinates of the tile
+     * @param x the x-coordinates of the tile
+     * @param dy the vertical step of the direction
+     * @param dx the horizontal step of the direction
+     * @param pawn the player owning the run
+     * @return the length of the run, including the tile itself
+     */
+    private int runLength(int y, int x, int dy, int dx, int pawn) {
+
+        int length = 1;
+
+        // follows the run forwards...
+        for (int i = 1, curY = y + dy, curX = x + dx; i < WIN_LENGTH; i++, curY += dy, curX += dx) {
+            if (curY < 0 || curY >= BOARD_HEIGHT || curX < 0 || curX >= BOARD_WIDTH || BOARD[curY][curX] != pawn) {
+                break;
+            }
+            length++;
+        }
+
+        // ...then backwards
+        for (int i = 1, curY = y - dy, curX = x - dx; i < WIN_LENGTH; i++, curY -= dy, curX -= dx) {
+            if (curY < 0 || curY >= BOARD_HEIGHT || curX < 0 || curX >= BOARD_WIDTH || BOARD[curY][curX] != pawn) {
+                break;
+            }
+            length++;
+        }
+
+        return length;
+    }
+
+    /**
+     * Counts a pawn placed on or removed from the board along its row, column and main diagonals
      * @param y the y-coordinates of the pawn
+     * @param x the x-coordinates of the pawn
+     * @param pawn the player who owns the pawn
+     * @param count 1 when the pawn is placed, -1 when it is removed
      */
-    public void play(int x, int y) {
-        // if the tile is empty...
-        if (isPlayableTile(y, x)){
-            // places the corresponding player tile
-            super.play(y, x, curPlayerTurn());
-            // and moves on to the next turn
-            nextTurn();
+    private void countPawn(int y, int x, int pawn, int count) {
+
+        final int PLAYER = pawn == PLAYER_X_KEY ? 0 : 1;
+
+        // counts the pawn along its row and column
+        ROW_COUNTS[PLAYER][y] += count;
+        COLUMN_COUNTS[PLAYER][x] += count;
+
+        // counts the pawn along the main diagonals it belongs to
+        if (x == y) {
+            DOWN_DIAG_COUNTS[PLAYER] += count;
+        }
+        if (x + y == BOARD_WIDTH - 1) {
+            UP_DIAG_COUNTS[PLAYER] += count;
         }
     }
 
@@ -262,69 +661,35 @@ public class TickTackToe extends Board {
 
     /**
      * Checks for win conditions for both players
+     * <br>
+     * The answer is kept up to date by {@link #play(int, int)} and costs no scan of the board
      * <ul>
-     *     <li>-1 : no player has won
-     *     <li> 0 : player O has won
-     *     <li> 1 : player X has won
+     *     <li>EMPTY_TILE_KEY : no player has won
+     *     <li>PLAYER_O_KEY : player O has won
+     *     <li>PLAYER_X_KEY : player X has won
      * </ul>
      * @return which player has won or if none has won
      */
     public int winingPlayer() {
-        // gets wining conditions
-        int rowWining =     isWining(       rowScore(true));
-        int columnWining =  isWining(    columnScore(true));
-        int diag1Wining =   isWining(  downDiagScore(true));
-        int diag2Wining =   isWining(    upDiagScore(true));
-
-        // whether X is wining along the rows / columns / upwards or downward diagonals
-        boolean XRowWining      = rowWining     == PLAYER_X_KEY;
-        boolean XColumnWining   = columnWining  == PLAYER_X_KEY;
-        boolean XDiag1Wining    = diag1Wining   == PLAYER_X_KEY;
-        boolean XDiag2Wining    = diag2Wining   == PLAYER_X_KEY;
-
-        // whether X is wining along the rows / columns / upwards or downward diagonals
-        boolean ORowWining      = rowWining     == PLAYER_O_KEY;
-        boolean OColumnWining   = columnWining  == PLAYER_O_KEY;
-        boolean ODiag1Wining    = diag1Wining   == PLAYER_O_KEY;
-        boolean ODiag2Wining    = diag2Wining   == PLAYER_O_KEY;
-
-        // checks whether player X has won
-        if (XRowWining || XColumnWining || XDiag1Wining || XDiag2Wining) {
-            return PLAYER_X_KEY;
-        }
-        // checks whether player O has won
-        if (ORowWining || OColumnWining || ODiag1Wining || ODiag2Wining) {
-            return PLAYER_O_KEY;
-        }
-
-        // no player has won yet
-        return EMPTY_TILE_KEY;
+        GameEvents.checkedWin(this);
+        return winner;
     }
 
     /**
-     * Checks whether a player is wining based on his specified score
-     * @param score the player's score along the rows / columns / up or down diagonal
-     * @return whether a player has won
+     * Gets the winner without recording a win check, for engines and simulations
+     * @return which player has won or if none has won
      */
-    private int isWining(int[] score) {
-
-        // gets the maxim score
-        Arrays.sort(score);
-        final int MAX_SCORE = score[score.length - 1];
-
-        // if player X is wining
-        if (MAX_SCORE == BOARD_DIMENSIONS * PLAYER_X_KEY) {
-            return PLAYER_X_KEY;
-        }
-        // if player O is wining
-        if (MAX_SCORE == BOARD_DIMENSIONS * PLAYER_O_KEY) {
-            return PLAYER_O_KEY;
-        }
-
-        // no player has won yet
-        return EMPTY_TILE_KEY;
+    int winner() {
+        return winner;
     }
 
+    /**
+     * Gets the time the game started, or was last reset
+     * @return the System.nanoTime() of the start of the game
+     */
+    long getStartNanos() {
+        return startNanos;
+    }
 
     /**
      * The player's score along the rows
@@ -334,14 +699,14 @@ public class TickTackToe extends Board {
     protected int[] rowScore(boolean considerEmpty) {
 
         // how close the player is to wining on each row
-        final int[] ROW_SCORE = new int[BOARD_DIMENSIONS];
+        final int[] ROW_SCORE = new int[BOARD_HEIGHT];
         Arrays.fill(ROW_SCORE, 0);
 
-        // verifies there are no empty tiles in the row
-        int hasNoEmpty = 1;
-
         // Check rows for alignment
-        for (int i = 0; i < BOARD_DIMENSIONS; i++) {
+        for (int i = 0; i < BOARD_HEIGHT; i++) {
+
+            // verifies there are no empty tiles in the row
+            int hasNoEmpty = 1;
 
             // adds up every tile of the row
             for (int tile : getRow(i)) {
@@ -369,27 +734,33 @@ public class TickTackToe extends Board {
     protected int[] columnScore(boolean considerEmpty) {
 
         // how close the player is to wining on each column
-        final int[] COLUMN_SCORE = new int[BOARD_DIMENSIONS];
+        final int[] COLUMN_SCORE = new int[BOARD_WIDTH];
         Arrays.fill(COLUMN_SCORE, 0);
 
-        // verifies there are no empty tiles in the column
-        int hasNoEmpty = 1;
-
-        // checks columns for alignment
-        for (int i = 0; i < BOARD_DIMENSIONS; i++) {
-
-            // adds up every tile in the column, ignoring empty tiles
-            for (int[] row: getBoard()) {
-                COLUMN_SCORE[i] += row[i] != EMPTY_TILE_KEY ? row[i] : (hasNoEmpty = 0);
+        // verifies there are no empty tiles in each column
+        final boolean[] HAS_EMPTY = new boolean[BOARD_WIDTH];
+
+        // adds up every tile of every column, ignoring empty tiles
+        // walking the board row by row rather than column by column, so that every read is sequential
+        for (int[] row : getBoard()) {
+            for (int i = 0; i < BOARD_WIDTH; i++) {
+                if (row[i] != EMPTY_TILE_KEY) {
+                    COLUMN_SCORE[i] += row[i];
+                } else {
+                    HAS_EMPTY[i] = true;
+                }
             }
+        }
 
-            // if the method is set to consider empty tiles
-            // and there was an empty tile in the row...
-            if (considerEmpty && hasNoEmpty == 0) {
-                // sets the column score along that column to be negative
-                COLUMN_SCORE[i] = EMPTY_TILE_KEY;
+        // if the method is set to consider empty tiles...
+        if (considerEmpty) {
+            for (int i = 0; i < BOARD_WIDTH; i++) {
+                // and there was an empty tile in the column...
+                if (HAS_EMPTY[i]) {
+                    // sets the column score along that column to be negative
+                    COLUMN_SCORE[i] = EMPTY_TILE_KEY;
+                }
             }
-
         }
 
         // returns the player score along the columns
@@ -410,7 +781,7 @@ public class TickTackToe extends Board {
         int hasNoEmpty = 1;
 
         // adds up every tile in the downwards diagonal
-        for (int i = 0; i < BOARD_DIMENSIONS; i++) {
+        for (int i = 0; i < Math.min(BOARD_WIDTH, BOARD_HEIGHT); i++) {
             // geste the tile
             int curTile = getTile(i,i);
 
@@ -442,10 +813,10 @@ public class TickTackToe extends Board {
         int hasNoEmpty = 1;
 
         // adds up every tile in the upwards diagonal
-        for (int i = 0; i < BOARD_DIMENSIONS; i++) {
+        for (int i = 0; i < Math.min(BOARD_WIDTH, BOARD_HEIGHT); i++) {
 
             // gets the current tile
-            int curTile = getTile(i, BOARD_DIMENSIONS - 1 -i);
+            int curTile = getTile(i, BOARD_WIDTH - 1 -i);
             // if it is not empty, adds it to the diagonal score
             DIAGONAL_SCORE[0] += curTile != EMPTY_TILE_KEY ? curTile : (hasNoEmpty = 0);
 
@@ -468,30 +839,17 @@ public class TickTackToe extends Board {
      */
     @Override
     public String toString() {
-        // a matrix containing each row of the board under string form
-        String[] boardStringRows = new String[BOARD_DIMENSIONS];
-        // initialises the value of each row
-        Arrays.fill(boardStringRows, "");
-
-        // the final representation of the board in string form
-        StringBuilder boardStringFinal = new StringBuilder();
-
-        // converts each row to a string
-        for (int i = 0; i < BOARD_DIMENSIONS; i++) {
-            for (int j = 0; j < BOARD_DIMENSIONS; j++) {
-                // gets the values of each tile and separates them
-                boardStringRows[i] += convertTile(i, j) + " ";
-            }
-        }
-
-        // adds a space between each row
-        for (int i = 0; i < boardStringRows.length -1; i++) {
-            boardStringFinal.append(boardStringRows[i]).append("\n");
+        // draws the board straight into a builder of the right size
+        final BoardRenderer RENDERER = new BoardRenderer(this);
+        final StringBuilder OUT = new StringBuilder(RENDERER.renderedLength());
+        try {
+            RENDERER.render(OUT);
+        } catch (IOException e) {
+            // a string builder never fails
+            throw new UncheckedIOException(e);
         }
-        // does not add a space after the last row
-        boardStringFinal.append(boardStringRows[boardStringRows.length - 1]);
 
         // returns the formatted result
-        return boardStringFinal.toString();
+        return OUT.toString();
     }
 }
@@ -0,0 +1,234 @@
+package TickTackToe;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A fixed-size table remembering the result of searched positions, keyed by their zobrist hash
+ * <br>
+ * Entries live in two primitive arrays and are grouped by buckets of two :
+ * the first slot keeps the deepest search of the bucket, the second one always takes the latest search.
+ * An entry is packed in a single long which reads as follows :
+ * <ul>
+ *     <li>bits 0 to 23 : best move + 1 (0 when there is none)
+ *     <li>bits 24 to 31 : search depth
+ *     <li>bits 32 to 33 : bound type (never 0, so stored entries are never 0 either)
+ *     <li>bits 34 to 63 : score
+ * </ul>
+ * The table is shared by search threads without locks : each slot keeps its hash XORed with its entry,
+ * so an entry torn by two threads writing the same slot no longer matches its hash and is treated as missing
+ */
+public class TranspositionTable {
+
+    // bound types of the stored scores
+    static final int EXACT = 1;
+    static final int LOWER_BOUND = 2;
+    static final int UPPER_BOUND = 3;
+
+    // the deepest search and the largest move an entry can hold
+    static final int MAX_STORED_DEPTH = 0xFF;
+    static final int MAX_STORED_MOVE = 0xFF_FFFF - 1;
+
+    // value returned by a probe which found nothing
+    static final long NO_ENTRY = 0;
+
+    // size of a bucket in bytes : two keys and two entries
+    private static final int BUCKET_BYTES = 4 * Long.BYTES;
+
+    // the largest number of buckets arrays can hold
+    private static final int MAX_BUCKETS = 1 << 29;
+
+    // the hashes of every slot, XORed with their entries
+    private final long[] KEYS;
+    private final long[] ENTRIES;
+
+    // maps a hash onto its bucket
+    private final int BUCKET_MASK;
+
+    // probe statistics
+    private final LongAdder HITS = new LongAdder();
+    private final LongAdder MISSES = new LongAdder();
+    private final LongAdder COLLISIONS = new LongAdder();
+
+    /**
+     * Creates a table which never takes up more than the given amount of memory
+     * @param maxBytes the memory the table may use, in bytes
+     */
+    public TranspositionTable(long maxBytes) {
+
+        // if the table cannot even hold a single bucket...
+        if (maxBytes < BUCKET_BYTES) {
+            // throws an error
+            throw new IllegalArgumentException(String.format("Table needs at least %s bytes", BUCKET_BYTES));
+        }
+
+        // uses the largest power of two of buckets fitting in memory
+        final int BUCKETS = (int) Long.highestOneBit(Math.min(maxBytes / BUCKET_BYTES, MAX_BUCKETS));
+        KEYS = new long[2 * BUCKETS];
+        ENTRIES = new long[2 * BUCKETS];
+        BUCKET_MASK = BUCKETS - 1;
+    }
+
+    /**
+     * Gets the number of positions the table can hold
+     * @return the capacity of the table
+     */
+    public int getCapacity() {
+        return KEYS.length;
+    }
+
+    /**
+     * Gets the number of probes which found their position
+     * @return the number of hits
+     */
+    public long getHits() {
+        return HITS.sum();
+    }
+
+    /**
+     * Gets the number of probes which did not find their position
+     * @return the number of misses
+     */
+    public long getMisses() {
+        return MISSES.sum();
+    }
+
+    /**
+     * Gets the number of missed probes whose bucket was taken by other positions
+     * @return the number of collisions
+     */
+    public long getCollisions() {
+        return COLLISIONS.sum();
+    }
+
+    /**
+     * Resets the probe statistics
+     */
+    public void resetStatistics() {
+        HITS.reset();
+        MISSES.reset();
+        COLLISIONS.reset();
+    }
+
+    /**
+     * Forgets every stored position
+     */
+    public void clear() {
+        Arrays.fill(KEYS, 0);
+        Arrays.fill(ENTRIES, 0);
+    }
+
+    /**
+     * Looks up a position
+     * @param key the zobrist hash of the position
+     * @return the packed entry of the position, or {@link #NO_ENTRY} if it is not stored
+     */
+    long probe(long key) {
+
+        final int SLOT = bucketOf(key);
+
+        // looks through both slots of the bucket
+        for (int i = SLOT; i < SLOT + 2; i++) {
+            // reads the entry once, another thread may be overwriting it
+            final long ENTRY = ENTRIES[i];
+            if (ENTRY != NO_ENTRY && (KEYS[i] ^ ENTRY) == key) {
+                HITS.increment();
+                return ENTRY;
+            }
+        }
+
+        // the position is not stored
+        MISSES.increment();
+        if (ENTRIES[SLOT] != NO_ENTRY && ENTRIES[SLOT + 1] != NO_ENTRY) {
+            COLLISIONS.increment();
+        }
+        return NO_ENTRY;
+    }
+
+    /**
+     * Stores the result of a search
+     * @param key the zobrist hash of the position
+     * @param depth the depth of the search
+     * @param bound the type of bound of the score
+     * @param score the score of the position
+     * @param move the best move found, or -1 if there is none
+     */
+    void store(long key, int depth, int bound, int score, int move) {
+
+        final int SLOT = bucketOf(key);
+        final long ENTRY = pack(depth, bound, score, move);
+
+        // the first slot only gives way to searches at least as deep, or to the same position
+        final long FIRST_ENTRY = ENTRIES[SLOT];
+        if (FIRST_ENTRY == NO_ENTRY || (KEYS[SLOT] ^ FIRST_ENTRY) == key || depthOf(FIRST_ENTRY) <= depthOf(ENTRY)) {
+            KEYS[SLOT] = key ^ ENTRY;
+            ENTRIES[SLOT] = ENTRY;
+            return;
+        }
+
+        // the second slot always takes the latest search
+        KEYS[SLOT + 1] = key ^ ENTRY;
+        ENTRIES[SLOT + 1] = ENTRY;
+    }
+
+    /**
+     * Packs the result of a search into an entry
+     * @param depth the depth of the search
+     * @param bound the type of bound of the score
+     * @param score the score of the position
+     * @param move the best move found, or -1 if there is none
+     * @return the packed entry
+     */
+    static long pack(int depth, int bound, int score, int move) {
+        // moves which do not fit are dropped, deeper searches are stored as the deepest one
+        final long MOVE = move < 0 || move > MAX_STORED_MOVE ? 0 : move + 1;
+        final long DEPTH = Math.min(depth, MAX_STORED_DEPTH);
+        return MOVE | DEPTH << 24 | (long) bound << 32 | (long) score << 34;
+    }
+
+    /**
+     * Gets the best move of an entry
+     * @param entry the packed entry
+     * @return the best move, or -1 if there is none
+     */
+    static int moveOf(long entry) {
+        return (int) (entry & 0xFF_FFFF) - 1;
+    }
+
+    /**
+     * Gets the search depth of an entry
+     * @param entry the packed entry
+     * @return the depth of the search
+     */
+    static int depthOf(long entry) {
+        return (int) (entry >>> 24 & 0xFF);
+    }
+
+    /**
+     * Gets the bound type of an entry
+     * @param entry the packed entry
+     * @return the type of bound of the score
+     */
+    static int boundOf(long entry) {
+        return (int) (entry >>> 32 & 0x3);
+    }
+
+    /**
+     * Gets the score of an entry
+     * @param entry the packed entry
+     * @return the score
+     */
+    static int scoreOf(long entry) {
+        return (int) (entry >> 34);
+    }
+
+    /**
+     * Finds the first slot of the bucket of a position
+     * @param key the zobrist hash of the position
+     * @return the index of the bucket's first slot
+     */
+    private int bucketOf(long key) {
+        // mixes the high bits in so that neighbouring hashes spread out
+        return (int) ((key ^ key >>> 32) & BUCKET_MASK) << 1;
+    }
+}